@@ -28,23 +28,30 @@ import com.redditandroiddevelopers.tamagotchi.model.CreatureState;
 import com.redditandroiddevelopers.tamagotchi.model.Experience;
 import com.redditandroiddevelopers.tamagotchi.model.Medicine;
 import com.redditandroiddevelopers.tamagotchi.model.Sickness;
+import com.redditandroiddevelopers.tamagotchi.utils.StartupTracer;
 
 public class MainActivity extends AndroidApplication {
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
+        // the startup is timed from here until the main menu is interactive
+        final StartupTracer tracer = new StartupTracer();
+        tracer.begin("MainActivity.onCreate");
         super.onCreate(savedInstanceState);
 
         AndroidApplicationConfiguration cfg = new AndroidApplicationConfiguration();
-        cfg.useGL20 = false;
+        cfg.useGL20 = true; // falls back to GL10 where unavailable
 
         TamagotchiConfiguration tcfg = new TamagotchiConfiguration();
+        tcfg.startupTracer = tracer;
         initializeDatabase(tcfg);
         initialize(new TamagotchiGame(tcfg), cfg);
 
+        tracer.end("MainActivity.onCreate");
     }
 
     private void initializeDatabase(TamagotchiConfiguration config) {
+        config.startupTracer.begin("MainActivity.initializeDatabase");
         final Context context = getBaseContext();
         config.creatureDao = new CreatureDao(new CreatureDatabase<Creature>(
                 context), new CreatureMapper());
@@ -62,5 +69,6 @@ public class MainActivity extends AndroidApplication {
                 context), new MedicineMapper());
         config.sicknessDay = new SicknessDao(new CreatureDatabase<Sickness>(
                 context), new SicknessMapper());
+        config.startupTracer.end("MainActivity.initializeDatabase");
     }
 }
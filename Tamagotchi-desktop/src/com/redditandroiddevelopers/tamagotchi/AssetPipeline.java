@@ -0,0 +1,452 @@
+package com.redditandroiddevelopers.tamagotchi;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Blending;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.glutils.ETC1;
+import com.badlogic.gdx.graphics.glutils.ETC1.ETC1Data;
+import com.badlogic.gdx.tools.imagepacker.TexturePacker;
+import com.badlogic.gdx.tools.imagepacker.TexturePacker.Settings;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Packs the images in {@code Texture-assets} into one texture atlas per
+ * screen. Run this whenever images change, before launching the game. Every
+ * atlas is hashed over the contents of its source directory; only atlases
+ * whose hash differs from the one recorded in the manifest are repacked, on
+ * as many threads as there are cores. The manifest is written to the assets
+ * directory and checked by {@link TamagotchiAssets#checkManifest()} at
+ * runtime.
+ * <p>
+ * Next to every atlas a compressed variant is written to
+ * {@link TamagotchiAssets#COMPRESSED_DIR}, which the game loads instead on
+ * devices that can upload ETC1 textures. Every page is encoded as ETC1;
+ * since ETC1 has no alpha channel, the alpha of a page with transparency is
+ * encoded into a second ETC1 page next to it, named with
+ * {@link TamagotchiAssets#ALPHA_PAGE_SUFFIX}, which the sprite batch shader
+ * samples along with the colors.
+ * <p>
+ * Usage: {@code AssetPipeline [source dir] [assets dir] [--force]}
+ */
+public class AssetPipeline {
+
+    /** Bump this whenever the packer settings change to force a full repack */
+    private static final int VERSION = 2;
+
+    /** The texture atlases to create, one per screen */
+    private static final String[] ATLASES = new String[] {
+            "main-menu",
+            "main-game",
+            "create-creature"
+    };
+
+    private final File sourceDir;
+    private final File assetsDir;
+    private final boolean force;
+
+    public AssetPipeline(File sourceDir, File assetsDir, boolean force) {
+        this.sourceDir = sourceDir;
+        this.assetsDir = assetsDir;
+        this.force = force;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Pixmap and ETC1 need the native libraries
+        GdxNativesLoader.load();
+        // pages are converted as they are, not blended onto each other
+        Pixmap.setBlending(Blending.None);
+        final ArrayList<String> paths = new ArrayList<String>();
+        boolean force = false;
+        for (String arg : args) {
+            if ("--force".equals(arg)) {
+                force = true;
+            } else {
+                paths.add(arg);
+            }
+        }
+        final File sourceDir = new File(paths.size() > 0 ? paths.get(0) : "../Texture-assets");
+        final File assetsDir = new File(paths.size() > 1 ? paths.get(1)
+                : "../Tamagotchi-android/assets");
+        new AssetPipeline(sourceDir, assetsDir, force).run();
+    }
+
+    /**
+     * Repack all atlases that changed since the last run and update the
+     * manifest.
+     */
+    public void run() throws IOException, InterruptedException, ExecutionException {
+        final long startTime = System.currentTimeMillis();
+        final File manifestFile = new File(assetsDir, TamagotchiAssets.ATLAS_MANIFEST);
+        final Map<String, String[]> manifest = readManifest(manifestFile);
+
+        // find out which atlases need to be repacked
+        final Map<String, String> hashes = new LinkedHashMap<String, String>();
+        final List<String> changed = new ArrayList<String>();
+        for (String atlas : ATLASES) {
+            final String hash = hashDirectory(new File(sourceDir, atlas));
+            hashes.put(atlas, hash);
+            final String[] entry = manifest.get(atlas);
+            if (force || entry == null || !entry[0].equals(hash)
+                    || !new File(new File(assetsDir, atlas), "pack").exists()
+                    || !new File(new File(assetsDir, TamagotchiAssets.COMPRESSED_DIR + atlas),
+                            "pack").exists()) {
+                changed.add(atlas);
+            } else {
+                System.out.println("Up to date: " + atlas);
+            }
+        }
+
+        // pack the changed ones in parallel
+        final int threads = Math.max(1, Math.min(changed.size(),
+                Runtime.getRuntime().availableProcessors()));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final Map<String, Future<String[]>> results = new LinkedHashMap<String, Future<String[]>>();
+        try {
+            for (final String atlas : changed) {
+                results.put(atlas, executor.submit(new Callable<String[]>() {
+                    @Override
+                    public String[] call() throws Exception {
+                        return pack(atlas);
+                    }
+                }));
+            }
+            for (Map.Entry<String, Future<String[]>> result : results.entrySet()) {
+                final String atlas = result.getKey();
+                final String[] pages = result.getValue().get();
+                final String[] entry = new String[pages.length + 1];
+                entry[0] = hashes.get(atlas);
+                System.arraycopy(pages, 0, entry, 1, pages.length);
+                manifest.put(atlas, entry);
+                System.out.println("Packed: " + atlas + " " + Arrays.toString(pages));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // forget atlases that no longer exist
+        manifest.keySet().retainAll(hashes.keySet());
+        writeManifest(manifestFile, manifest);
+        System.out.println("Packed " + changed.size() + " of " + ATLASES.length + " atlases in "
+                + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    /**
+     * Pack a single atlas. Safe to call from multiple threads at once, as long
+     * as each call packs a different atlas.
+     *
+     * @return the names of the written page images
+     */
+    private String[] pack(String atlas) throws IOException {
+        final File destDir = new File(assetsDir, atlas);
+        // remove stale pages of an earlier run
+        deletePages(destDir);
+
+        // the settings carry state while packing, so use one per atlas
+        final Settings settings = new Settings();
+        settings.padding = 2;
+        settings.maxWidth = 1024;
+        settings.maxHeight = 1024;
+        settings.incremental = false;
+        settings.rotate = false;
+        settings.stripWhitespace = true;
+        TexturePacker.process(settings, new File(sourceDir, atlas).getPath(), destDir.getPath());
+
+        compress(destDir, new File(assetsDir, TamagotchiAssets.COMPRESSED_DIR + atlas));
+        return readPages(new File(destDir, "pack"));
+    }
+
+    /**
+     * Write the compressed variant of a packed atlas. The regions stay where
+     * they are, only the page images and their formats change.
+     */
+    private static void compress(File packDir, File destDir) throws IOException {
+        deletePages(destDir);
+        destDir.mkdirs();
+
+        // split the pack file into pages, each starting with its image name
+        final List<List<String>> pages = new ArrayList<List<String>>();
+        final BufferedReader reader = new BufferedReader(new FileReader(new File(packDir, "pack")));
+        try {
+            List<String> page = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().length() == 0) {
+                    page = null;
+                    continue;
+                }
+                if (page == null) {
+                    page = new ArrayList<String>();
+                    pages.add(page);
+                }
+                page.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+
+        final StringBuilder pack = new StringBuilder(4096);
+        for (List<String> lines : pages) {
+            final String imageName = lines.get(0).trim();
+            final Pixmap pixmap = new Pixmap(new FileHandle(new File(packDir, imageName)));
+            final String baseName = imageName.substring(0, imageName.lastIndexOf('.'));
+            try {
+                writeEtc1(pixmap, new File(destDir, baseName + ".etc1"));
+                if (!isOpaque(pixmap, lines)) {
+                    writeEtc1Alpha(pixmap, new File(destDir, baseName
+                            + TamagotchiAssets.ALPHA_PAGE_SUFFIX));
+                }
+                lines.set(0, baseName + ".etc1");
+            } finally {
+                pixmap.dispose();
+            }
+            // only used where ETC1 has to be decoded in software
+            final Format format = Format.RGB565;
+            pack.append('\n');
+            for (String line : lines) {
+                if (line.trim().startsWith("format:")) {
+                    line = "format: " + format.name();
+                }
+                pack.append(line).append('\n');
+            }
+        }
+        new FileHandle(new File(destDir, "pack")).writeString(pack.toString(), false);
+    }
+
+    /**
+     * @param pixmap the page image
+     * @param lines the lines describing the page in the pack file
+     * @return true if no region on the page has transparent pixels; the unused
+     *         space between the regions does not matter
+     */
+    private static boolean isOpaque(Pixmap pixmap, List<String> lines) {
+        if (pixmap.getFormat() == Format.RGB888 || pixmap.getFormat() == Format.RGB565) {
+            return true;
+        }
+        if (pixmap.getFormat() != Format.RGBA8888) {
+            return false;
+        }
+        final ByteBuffer pixels = pixmap.getPixels();
+        final int width = pixmap.getWidth();
+        int[] xy = null;
+        for (String line : lines) {
+            line = line.trim();
+            if (line.startsWith("xy:")) {
+                xy = parsePair(line);
+            } else if (line.startsWith("size:") && xy != null) {
+                final int[] size = parsePair(line);
+                for (int y = xy[1]; y < xy[1] + size[1]; y++) {
+                    for (int x = xy[0]; x < xy[0] + size[0]; x++) {
+                        if (pixels.get((y * width + x) * 4 + 3) != (byte) 0xff) {
+                            return false;
+                        }
+                    }
+                }
+                xy = null;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parse a pack file line of the form {@code "name: a, b"}.
+     */
+    private static int[] parsePair(String line) {
+        final String[] values = line.substring(line.indexOf(':') + 1).split(",");
+        return new int[] {
+                Integer.parseInt(values[0].trim()), Integer.parseInt(values[1].trim())
+        };
+    }
+
+    private static void writeEtc1(Pixmap pixmap, File file) {
+        final Pixmap rgb = new Pixmap(pixmap.getWidth(), pixmap.getHeight(), Format.RGB888);
+        rgb.drawPixmap(pixmap, 0, 0);
+        final ETC1Data data = ETC1.encodeImagePKM(rgb);
+        rgb.dispose();
+        // the encoded data is a regular direct buffer, so it must not be
+        // disposed like ETC1Data loaded from a file
+        data.write(new FileHandle(file));
+    }
+
+    /**
+     * Encode the alpha channel of a page as the gray levels of an ETC1 page.
+     */
+    private static void writeEtc1Alpha(Pixmap pixmap, File file) {
+        final int width = pixmap.getWidth();
+        final int height = pixmap.getHeight();
+        final Pixmap rgba = new Pixmap(width, height, Format.RGBA8888);
+        rgba.drawPixmap(pixmap, 0, 0);
+        final Pixmap alpha = new Pixmap(width, height, Format.RGB888);
+        final ByteBuffer src = rgba.getPixels();
+        final ByteBuffer dst = alpha.getPixels();
+        for (int i = 0; i < width * height; i++) {
+            final byte a = src.get(i * 4 + 3);
+            dst.put(i * 3, a);
+            dst.put(i * 3 + 1, a);
+            dst.put(i * 3 + 2, a);
+        }
+        rgba.dispose();
+        writeEtc1(alpha, file);
+        alpha.dispose();
+    }
+
+    /**
+     * Delete the pack file and page images of an earlier run.
+     */
+    private static void deletePages(File dir) {
+        final File[] oldFiles = dir.listFiles();
+        if (oldFiles != null) {
+            for (File file : oldFiles) {
+                final String name = file.getName();
+                if (name.endsWith(".png") || name.endsWith(".etc1") || name.equals("pack")) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the page images referenced by a pack file
+     */
+    static String[] readPages(File packFile) throws IOException {
+        final ArrayList<String> pages = new ArrayList<String>();
+        final BufferedReader reader = new BufferedReader(new FileReader(packFile));
+        try {
+            // every page starts with its image name after an empty line
+            boolean pageStart = true;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0) {
+                    pageStart = true;
+                } else if (pageStart) {
+                    pages.add(line);
+                    pageStart = false;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return pages.toArray(new String[pages.size()]);
+    }
+
+    /**
+     * Hash the names and contents of all files below a directory, in a stable
+     * order.
+     */
+    private static String hashDirectory(File dir) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e.toString());
+        }
+        digest.update(("v" + VERSION).getBytes("UTF-8"));
+        hashDirectory(digest, dir, "");
+        final StringBuilder sb = new StringBuilder(32);
+        for (byte b : digest.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void hashDirectory(MessageDigest digest, File dir, String prefix)
+            throws IOException {
+        final File[] files = dir.listFiles();
+        if (files == null) {
+            throw new IOException("Not a directory: " + dir);
+        }
+        Arrays.sort(files);
+        final byte[] buffer = new byte[8192];
+        for (File file : files) {
+            if (file.getName().startsWith(".")) {
+                continue;
+            }
+            final String name = prefix + file.getName();
+            digest.update(name.getBytes("UTF-8"));
+            if (file.isDirectory()) {
+                hashDirectory(digest, file, name + "/");
+                continue;
+            }
+            final InputStream in = new FileInputStream(file);
+            try {
+                int length;
+                while ((length = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, length);
+                }
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * @return the manifest entries by atlas name; each entry is the source hash
+     *         followed by the page images
+     */
+    private static Map<String, String[]> readManifest(File file) throws IOException {
+        final Map<String, String[]> manifest = new LinkedHashMap<String, String[]>();
+        if (!file.exists()) {
+            return manifest;
+        }
+        final BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0 || line.startsWith("#")) {
+                    continue;
+                }
+                final String[] fields = line.split("\\s+");
+                if (fields.length >= 2) {
+                    manifest.put(fields[0], Arrays.copyOfRange(fields, 1, fields.length));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return manifest;
+    }
+
+    private static void writeManifest(File file, Map<String, String[]> manifest)
+            throws IOException {
+        final FileWriter writer = new FileWriter(file);
+        try {
+            writer.write("# Generated by AssetPipeline, do not edit.\n");
+            writer.write("# <atlas> <source hash> <page>...\n");
+            for (Map.Entry<String, String[]> entry : manifest.entrySet()) {
+                writer.write(entry.getKey());
+                for (String field : entry.getValue()) {
+                    writer.write(' ');
+                    writer.write(field);
+                }
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+}
@@ -0,0 +1,369 @@
+package com.redditandroiddevelopers.tamagotchi;
+
+import com.redditandroiddevelopers.tamagotchi.model.CreatureEvolution;
+import com.redditandroiddevelopers.tamagotchi.model.CreatureRaiseType;
+import com.redditandroiddevelopers.tamagotchi.model.CreatureState;
+import com.redditandroiddevelopers.tamagotchi.simulation.CareAction;
+import com.redditandroiddevelopers.tamagotchi.simulation.CreatureStore;
+import com.redditandroiddevelopers.tamagotchi.simulation.NeedRules;
+import com.redditandroiddevelopers.tamagotchi.simulation.NeedsSimulation;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs whole creature lifetimes through the {@link NeedsSimulation} rules
+ * without a window, to balance the decay rates and the experience needed to
+ * evolve. Creatures are born healthy and visited by a {@link Policy} at a
+ * fixed interval, the time in between being skipped in closed form. A
+ * lifetime ends when the creature dies, when it has gained the experience to
+ * evolve, or after a maximum number of ticks. The age a creature evolved at
+ * is the exact tick it reached its experience goal, even if that was between
+ * two visits.
+ * <p>
+ * The lifetimes are simulated in batches of independent creatures, one batch
+ * per core at a time, each with a {@link CreatureStore} and a random seed of
+ * its own. The statistics are kept as running means and variances, so
+ * memory does not grow with the number of lifetimes; the totals so far are
+ * appended to the CSV file after every batch, in batch order, so the output
+ * is the same for any number of threads. Ages are given in ticks of
+ * {@link NeedsSimulation#TICK_MILLIS}.
+ * <p>
+ * Usage: {@code BatchSimulator [--lifetimes n] [--batch n] [--threads n]
+ * [--policy none|scheduled|attentive] [--interval ticks] [--miss p]
+ * [--multiplier m] [--max-ticks ticks] [--min-xp xp] [--max-xp xp]
+ * [--seed n] [--out file|-]}
+ */
+public class BatchSimulator {
+
+    /** The ways the creatures are taken care of on every visit */
+    public enum Policy {
+        /** Never takes care of the creature */
+        NONE,
+        /** Feeds once, takes it to the toilet and showers it, whatever it needs */
+        SCHEDULED,
+        /** Only does what the creature needs, but feeds it until it is full */
+        ATTENTIVE
+    }
+
+    private static final String HEADER = "batch,lifetimes,died,evolved,survived,"
+            + "lifespan_mean,lifespan_stddev,lifespan_min,lifespan_max,"
+            + "evolution_rate,evolution_age_mean,evolution_age_stddev,sickness_rate";
+
+    // the limits seeded into CREATURE_EVOLUTION by CreatureDatabase
+    private static final int MAX_NEED = 100;
+    /** How far the hunger is lowered by one feeding */
+    private static final int FEED_HUNGER = 25;
+
+    private int lifetimes = 100000;
+    private int batchSize = 10000;
+    private int threads = 0;
+    private Policy policy = Policy.ATTENTIVE;
+    private long interval = 3600;
+    private double miss = 0.1;
+    private double multiplier = 1;
+    private long maxTicks = 365L * 24 * 3600;
+    // the range CreatureDatabase seeds CE_MAX_EXPERIENCE from:
+    // 70000 + (int) (Math.random() * ((70000 + 120000) + 1))
+    private int minExperience = 70000;
+    private int maxExperience = 260000;
+    private long seed = 1;
+    private String out = "balance.csv";
+
+    public static void main(String[] args) throws Exception {
+        final BatchSimulator simulator = new BatchSimulator();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            simulator.set(args[i], args[i + 1]);
+        }
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for " + args[args.length - 1]);
+        }
+        simulator.run();
+    }
+
+    private void set(String option, String value) {
+        if ("--lifetimes".equals(option)) {
+            lifetimes = Integer.parseInt(value);
+        } else if ("--batch".equals(option)) {
+            batchSize = Integer.parseInt(value);
+        } else if ("--threads".equals(option)) {
+            threads = Integer.parseInt(value);
+        } else if ("--policy".equals(option)) {
+            policy = Policy.valueOf(value.toUpperCase());
+        } else if ("--interval".equals(option)) {
+            interval = Long.parseLong(value);
+        } else if ("--miss".equals(option)) {
+            miss = Double.parseDouble(value);
+        } else if ("--multiplier".equals(option)) {
+            multiplier = Double.parseDouble(value);
+        } else if ("--max-ticks".equals(option)) {
+            maxTicks = Long.parseLong(value);
+        } else if ("--min-xp".equals(option)) {
+            minExperience = Integer.parseInt(value);
+        } else if ("--max-xp".equals(option)) {
+            maxExperience = Integer.parseInt(value);
+        } else if ("--seed".equals(option)) {
+            seed = Long.parseLong(value);
+        } else if ("--out".equals(option)) {
+            out = value;
+        } else {
+            throw new IllegalArgumentException("Unknown option " + option);
+        }
+    }
+
+    /**
+     * Simulate all lifetimes and write the statistics.
+     */
+    public void run() throws IOException, InterruptedException, ExecutionException {
+        if (batchSize <= 0 || interval <= 0 || minExperience > maxExperience) {
+            throw new IllegalArgumentException("Invalid batch size, interval or experience range");
+        }
+        final long startTime = System.currentTimeMillis();
+        final int threadCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        final int batches = (lifetimes + batchSize - 1) / batchSize;
+        final Writer writer = "-".equals(out) ? new OutputStreamWriter(System.out)
+                : new BufferedWriter(new FileWriter(new File(out)));
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        final BatchResult total = new BatchResult();
+        try {
+            writer.write(HEADER + "\n");
+            // keep a few batches per thread queued, but not all of them
+            final ArrayDeque<Future<BatchResult>> queue = new ArrayDeque<Future<BatchResult>>();
+            int submitted = 0;
+            for (int batch = 0; batch < batches; batch++) {
+                while (submitted < batches && queue.size() < threadCount * 2) {
+                    final int index = submitted++;
+                    final int count = Math.min(batchSize, lifetimes - index * batchSize);
+                    queue.add(executor.submit(new Callable<BatchResult>() {
+                        @Override
+                        public BatchResult call() {
+                            return simulate(index, count);
+                        }
+                    }));
+                }
+                total.merge(queue.remove().get());
+                writer.write(batch + "," + total.toCsv() + "\n");
+                writer.flush();
+            }
+        } finally {
+            executor.shutdownNow();
+            if ("-".equals(out)) {
+                writer.flush();
+            } else {
+                writer.close();
+            }
+        }
+        System.err.println("Simulated " + total.count() + " lifetimes on " + threadCount
+                + " threads in " + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    /**
+     * Simulate a batch of lifetimes. Only depends on its arguments and the
+     * options, so may be called on any thread.
+     *
+     * @param batch the index of the batch, seeding its random numbers
+     * @param count the number of lifetimes
+     */
+    private BatchResult simulate(int batch, int count) {
+        final Random random = new Random(seed * 31 + batch);
+        final BatchResult result = new BatchResult();
+
+        final CreatureRaiseType raiseType = new CreatureRaiseType();
+        raiseType.name = "Batch";
+        raiseType.multiplier = multiplier;
+        // the rules never cap the experience, the evolution is checked here
+        final CreatureEvolution limits = new CreatureEvolution();
+        limits.name = "Batch";
+        limits.maxHealth = MAX_NEED;
+        limits.maxBowel = MAX_NEED;
+        limits.maxDiscipline = MAX_NEED;
+        limits.maxHunger = MAX_NEED;
+        limits.maxHappy = MAX_NEED;
+        limits.maxExperience = Integer.MAX_VALUE;
+
+        final CreatureStore store = new CreatureStore(count);
+        // the experience to evolve, the experience at the last visit and
+        // whether the creature was ever sick, indexed like the store
+        final int[] goals = new int[count];
+        final int[] visitedExperience = new int[count];
+        final boolean[] wasSick = new boolean[count];
+        final CreatureState state = new CreatureState();
+        state.raiseType = raiseType;
+        for (int i = 0; i < count; i++) {
+            state.health = MAX_NEED;
+            state.happy = MAX_NEED;
+            state.discipline = MAX_NEED / 2;
+            store.add(state, limits);
+            goals[i] = minExperience + random.nextInt(maxExperience - minExperience + 1);
+        }
+
+        long age = 0;
+        while (store.size() > 0) {
+            final long step = Math.min(interval, maxTicks - age);
+            store.fastForward(step);
+            age += step;
+            // backwards, so removing a creature only moves one already visited
+            for (int i = store.size() - 1; i >= 0; i--) {
+                store.read(i, state);
+                wasSick[i] |= state.sick;
+                if (state.experience >= goals[i]) {
+                    // the experience only ever rises from the start of the
+                    // step on, so it also did before any death in the step
+                    result.evolutionAge.add(NeedRules.getAgeGaining(age - step, multiplier,
+                            goals[i] - visitedExperience[i]));
+                } else if (state.health <= 0) {
+                    result.lifespan.add(store.getAge(i));
+                } else if (age >= maxTicks) {
+                    result.survived++;
+                } else {
+                    visitedExperience[i] = state.experience;
+                    if (random.nextDouble() >= miss) {
+                        visit(store, i, state);
+                    }
+                    continue;
+                }
+                if (wasSick[i]) {
+                    result.sick++;
+                }
+                final int last = store.size() - 1;
+                goals[i] = goals[last];
+                visitedExperience[i] = visitedExperience[last];
+                wasSick[i] = wasSick[last];
+                wasSick[last] = false;
+                store.remove(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Take care of a creature according to the policy.
+     */
+    private void visit(CreatureStore store, int index, CreatureState state) {
+        switch (policy) {
+            case SCHEDULED:
+                store.submit(index, CareAction.FEED);
+                store.submit(index, CareAction.TOILET);
+                store.submit(index, CareAction.SHOWER);
+                break;
+            case ATTENTIVE:
+                for (int hunger = state.hunger; hunger > 0; hunger -= FEED_HUNGER) {
+                    store.submit(index, CareAction.FEED);
+                }
+                if (state.bowel > MAX_NEED / 2) {
+                    store.submit(index, CareAction.TOILET);
+                }
+                if (state.sick) {
+                    store.submit(index, CareAction.SHOWER);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** The outcome of a number of lifetimes */
+    private static class BatchResult {
+
+        /** The ages the creatures that died died at */
+        final RunningStats lifespan = new RunningStats();
+        /** The ages the creatures that evolved evolved at */
+        final RunningStats evolutionAge = new RunningStats();
+        /** The number of creatures alive but not evolved at the maximum age */
+        long survived;
+        /** The number of creatures that were sick at some visit */
+        long sick;
+
+        long count() {
+            return lifespan.count + evolutionAge.count + survived;
+        }
+
+        void merge(BatchResult other) {
+            lifespan.merge(other.lifespan);
+            evolutionAge.merge(other.evolutionAge);
+            survived += other.survived;
+            sick += other.sick;
+        }
+
+        String toCsv() {
+            final double count = Math.max(1, count());
+            return count() + "," + lifespan.count + "," + evolutionAge.count + "," + survived
+                    + "," + lifespan.mean + "," + lifespan.getStandardDeviation()
+                    + "," + lifespan.getMin() + "," + lifespan.getMax()
+                    + "," + evolutionAge.count / count + "," + evolutionAge.mean
+                    + "," + evolutionAge.getStandardDeviation() + "," + sick / count;
+        }
+
+    }
+
+    /**
+     * The count, mean, variance and range of a series of values, updated one
+     * value at a time by Welford's method and merged by Chan's, so neither
+     * the values need to be kept nor large sums lose precision.
+     */
+    static class RunningStats {
+
+        long count;
+        double mean;
+        /** The sum of the squared differences from the mean */
+        double m2;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+
+        void add(long value) {
+            count++;
+            final double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        void merge(RunningStats other) {
+            if (other.count == 0) {
+                return;
+            }
+            final long total = count + other.count;
+            final double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            m2 += other.m2 + delta * delta * count * other.count / total;
+            count = total;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        /**
+         * @return the sample standard deviation, 0 for less than two values
+         */
+        double getStandardDeviation() {
+            return count > 1 ? Math.sqrt(m2 / (count - 1)) : 0;
+        }
+
+        /**
+         * @return the smallest value, 0 if there is none
+         */
+        long getMin() {
+            return count > 0 ? min : 0;
+        }
+
+        /**
+         * @return the largest value, 0 if there is none
+         */
+        long getMax() {
+            return count > 0 ? max : 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.redditandroiddevelopers.tamagotchi;
+
+import com.redditandroiddevelopers.tamagotchi.simulation.CareAction;
+import com.redditandroiddevelopers.tamagotchi.simulation.NeedRules;
+import com.redditandroiddevelopers.tamagotchi.simulation.SimulatedCreature;
+
+import java.util.Random;
+
+/**
+ * Verifies that {@link NeedRules#fastForward(SimulatedCreature, long)} ends
+ * up in exactly the same state as calling
+ * {@link NeedRules#tick(SimulatedCreature)} as often. Each state is random,
+ * including needs outside their limits, raise type multipliers of 0 and
+ * creatures that are already sick, starving or dead, and gets some care
+ * before it is advanced by a random number of ticks; every tenth state is
+ * advanced long enough to run through several ranges of the fast forward.
+ * The first state that differs is printed with its seed, and the check exits
+ * with 1.
+ * <p>
+ * Usage: {@code FastForwardCheck [states] [seed]}
+ */
+public class FastForwardCheck {
+
+    private static final CareAction[] ACTIONS = CareAction.values();
+
+    public static void main(String[] args) {
+        final int states = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        final long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+
+        for (int i = 0; i < states; i++) {
+            final long stateSeed = seed + i;
+            final SimulatedCreature ticked = create(new Random(stateSeed));
+            final SimulatedCreature skipped = create(new Random(stateSeed));
+            final long ticks = new Random(stateSeed * 31).nextInt(i % 10 == 0 ? 300000 : 3000);
+            for (long t = 0; t < ticks; t++) {
+                NeedRules.tick(ticked);
+            }
+            NeedRules.fastForward(skipped, ticks);
+
+            final String expected = describe(ticked);
+            final String actual = describe(skipped);
+            if (!expected.equals(actual)) {
+                System.out.println("Mismatch for seed " + stateSeed + " after " + ticks
+                        + " ticks");
+                System.out.println("ticked:       " + expected);
+                System.out.println("fast forward: " + actual);
+                System.exit(1);
+            }
+        }
+        System.out.println(states + " states identical");
+    }
+
+    private static SimulatedCreature create(Random random) {
+        final SimulatedCreature template = SimulatedCreature.createDefault();
+        template.state.raiseType.multiplier = random.nextInt(4) == 0 ? random.nextInt(3)
+                : random.nextDouble() * 5;
+        template.limits.maxHunger = random.nextInt(120);
+        template.limits.maxBowel = random.nextInt(120);
+        template.limits.maxHealth = random.nextInt(120);
+        template.limits.maxHappy = random.nextInt(120);
+        template.limits.maxDiscipline = random.nextInt(120);
+        template.limits.maxExperience = random.nextInt(120);
+        // the rate is taken from the multiplier when the creature is created
+        final SimulatedCreature creature = new SimulatedCreature(template.state,
+                template.limits);
+
+        creature.state.hunger = random.nextInt(130) - 5;
+        creature.state.bowel = random.nextInt(130) - 5;
+        creature.state.health = random.nextInt(130) - 5;
+        creature.state.happy = random.nextInt(130) - 5;
+        creature.state.discipline = random.nextInt(130) - 5;
+        creature.state.experience = random.nextInt(130);
+        creature.state.sick = random.nextBoolean();
+        creature.age = random.nextInt(100000);
+
+        final int actions = random.nextInt(4);
+        for (int i = 0; i < actions; i++) {
+            NeedRules.apply(creature, ACTIONS[random.nextInt(ACTIONS.length)]);
+        }
+        return creature;
+    }
+
+    private static String describe(SimulatedCreature creature) {
+        return "age " + creature.age + ", health " + creature.state.health + ", hunger "
+                + creature.state.hunger + ", bowel " + creature.state.bowel + ", happy "
+                + creature.state.happy + ", discipline " + creature.state.discipline
+                + ", sick " + creature.state.sick + ", experience "
+                + creature.state.experience;
+    }
+
+}
@@ -1,43 +1,25 @@
-
 package com.redditandroiddevelopers.tamagotchi;
 
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
-import com.badlogic.gdx.tools.imagepacker.TexturePacker;
-import com.badlogic.gdx.tools.imagepacker.TexturePacker.Settings;
+import com.redditandroiddevelopers.tamagotchi.utils.StartupTracer;
 
 public class Main {
     public static void main(String[] args) {
+        // the startup is timed from here until the main menu is interactive
+        final StartupTracer tracer = new StartupTracer();
+        tracer.mark("Main.main");
+
         LwjglApplicationConfiguration cfg = new LwjglApplicationConfiguration();
         cfg.title = "Tamagotchi";
-        cfg.useGL20 = false;
+        cfg.useGL20 = true; // falls back to GL10 where unavailable
         cfg.width = 800;
         cfg.height = 480;
         cfg.resizable = false;
 
-        /* XXX TEMPORARY! XXX */
-        // TODO: Only pack textures during development, disable for release
-        final Settings texturePackerSettings = new Settings();
-        texturePackerSettings.padding = 2;
-        texturePackerSettings.maxWidth = 1024;
-        texturePackerSettings.maxHeight = 1024;
-        texturePackerSettings.incremental = true;
-        texturePackerSettings.rotate = false;
-        texturePackerSettings.stripWhitespace = true;
-
-        // create a texture atlas per screen
-        final String[] screens = new String[] {
-                "main-menu",
-                "main-game",
-                "create-creature"
-        };
-        for (String screen : screens) {
-            final String srcdir = "../Texture-assets/" + screen;
-            final String destdir = "../Tamagotchi-android/assets/" + screen;
-            TexturePacker.process(texturePackerSettings, srcdir, destdir);
-        }
-        /* XXX END TEMPORARY XXX */
-
-        new LwjglApplication(new TamagotchiGame(new TamagotchiConfiguration()), cfg);
+        // texture atlases are packed ahead of time by the AssetPipeline
+        final TamagotchiConfiguration tcfg = new TamagotchiConfiguration();
+        tcfg.startupTracer = tracer;
+        new LwjglApplication(new TamagotchiGame(tcfg), cfg);
     }
 }
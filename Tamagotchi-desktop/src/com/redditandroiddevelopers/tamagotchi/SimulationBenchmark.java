@@ -0,0 +1,55 @@
+package com.redditandroiddevelopers.tamagotchi;
+
+import com.redditandroiddevelopers.tamagotchi.simulation.CreatureStore;
+import com.redditandroiddevelopers.tamagotchi.simulation.ShardedScheduler;
+import com.redditandroiddevelopers.tamagotchi.simulation.SimulatedCreature;
+
+/**
+ * Measures how the {@link ShardedScheduler} scales with the number of
+ * threads: a population of default creatures is ticked with 1 up to the
+ * given number of threads, and the ticks per second and the speedup over a
+ * single thread are printed for each.
+ * <p>
+ * Usage: {@code SimulationBenchmark [creatures] [max threads] [ticks]}
+ */
+public class SimulationBenchmark {
+
+    private static final int WARMUP_TICKS = 200;
+
+    public static void main(String[] args) {
+        final int creatures = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        final int maxThreads = args.length > 1 ? Integer.parseInt(args[1])
+                : Math.max(4, Runtime.getRuntime().availableProcessors());
+        final int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        System.out.println(creatures + " creatures, " + ticks + " ticks, "
+                + Runtime.getRuntime().availableProcessors() + " processors");
+        System.out.println("threads\tticks/s\tspeedup");
+        double single = 0;
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            final CreatureStore store = new CreatureStore(creatures);
+            for (int i = 0; i < creatures; i++) {
+                final SimulatedCreature creature = SimulatedCreature.createDefault();
+                store.add(creature.state, creature.limits);
+            }
+            final ShardedScheduler scheduler = new ShardedScheduler(store, threads);
+            for (int i = 0; i < WARMUP_TICKS; i++) {
+                scheduler.tick();
+            }
+            final long start = System.nanoTime();
+            for (int i = 0; i < ticks; i++) {
+                scheduler.tick();
+            }
+            final double seconds = (System.nanoTime() - start) / 1e9;
+            scheduler.shutdown();
+
+            final double rate = ticks / seconds;
+            if (threads == 1) {
+                single = rate;
+            }
+            System.out.println(threads + "\t" + Math.round(rate) + "\t"
+                    + Math.round(rate / single * 100) / 100.0);
+        }
+    }
+
+}
@@ -0,0 +1,356 @@
+package com.redditandroiddevelopers.tamagotchi;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.TextureData.TextureDataType;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets.Asset;
+import com.redditandroiddevelopers.tamagotchi.creatures.CreatureAnimationCache;
+import com.redditandroiddevelopers.tamagotchi.utils.CompressedAtlasLoader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Decides which assets stay in memory. Owners (usually screens) acquire and
+ * release assets through this class instead of loading and unloading them
+ * directly through {@link TamagotchiAssets}. An asset that is no longer owned
+ * by anybody is not unloaded right away but kept as an idle resident, so that
+ * going back to a screen does not reload its textures from disk. Idle assets
+ * are only evicted, least recently used first, when the texture memory used by
+ * all resident assets exceeds
+ * {@link TamagotchiConfiguration#textureMemoryBudget}. The creature animations
+ * built from the resident atlases are kept here as well, and dropped together
+ * with their atlas.
+ */
+public class AssetResidencyManager {
+
+    private static final String TAG = "Tamagotchi:AssetResidencyManager";
+
+    private final TamagotchiAssets assets;
+    private final TamagotchiConfiguration config;
+    private final CompressedAtlasLoader atlasLoader;
+
+    /**
+     * Every asset we hold a reference to in the asset manager, ordered from
+     * the least to the most recently used.
+     */
+    private final LinkedHashMap<Asset<?>, Residency> residents =
+            new LinkedHashMap<Asset<?>, Residency>(16, 0.75f, true);
+    /**
+     * The same residencies as {@link #residents}, for queries that must not
+     * count as a use and reorder them
+     */
+    private final HashMap<Asset<?>, Residency> lookup = new HashMap<Asset<?>, Residency>();
+
+    /** Texture memory used by all resident assets, in bytes */
+    private long residentBytes;
+
+    /**
+     * The last measured size of every asset that has been resident, used to
+     * decide whether a prefetched asset would fit into the budget.
+     */
+    private final HashMap<Asset<?>, Long> knownBytes = new HashMap<Asset<?>, Long>();
+
+    private final CreatureAnimationCache animations = new CreatureAnimationCache();
+
+    private static class Residency {
+
+        final Asset<?> asset;
+        /** The owners currently holding this asset; empty when idle */
+        final ArrayList<Object> owners = new ArrayList<Object>(2);
+        /** Texture memory used by this asset, or -1 while it is loading */
+        long bytes = -1;
+
+        Residency(Asset<?> asset) {
+            this.asset = asset;
+        }
+
+    }
+
+    /**
+     * @param assets the assets to keep resident
+     * @param config the configuration holding the texture memory budget
+     * @param atlasLoader the loader of the texture atlases, to account for
+     *            the alpha pages of compressed pages; may be null
+     */
+    public AssetResidencyManager(TamagotchiAssets assets, TamagotchiConfiguration config,
+            CompressedAtlasLoader atlasLoader) {
+        this.assets = assets;
+        this.config = config;
+        this.atlasLoader = atlasLoader;
+    }
+
+    /**
+     * Acquire an asset on behalf of an owner, loading it asynchronously if it
+     * is not resident yet. Acquiring an asset the owner already holds has no
+     * effect.
+     *
+     * @param owner the object holding the asset, usually a screen
+     * @param asset the asset to acquire
+     */
+    public <T> void acquire(Object owner, Asset<T> asset) {
+        Residency residency = residents.get(asset);
+        if (residency == null) {
+            residency = new Residency(asset);
+            residents.put(asset, residency);
+            lookup.put(asset, residency);
+            assets.loadAsset(asset);
+        }
+        if (!residency.owners.contains(owner)) {
+            residency.owners.add(owner);
+        }
+    }
+
+    /**
+     * Start loading an asset without an owner, so that it is already resident
+     * when it is acquired later on. The asset is only loaded if it is expected
+     * to fit into the texture memory budget without evicting anything.
+     *
+     * @param asset the asset to prefetch
+     * @return true if the asset is now loading or resident
+     */
+    public <T> boolean prefetch(Asset<T> asset) {
+        if (residents.containsKey(asset)) {
+            return true;
+        }
+        final Long bytes = knownBytes.get(asset);
+        final long expected = residentBytes + (bytes != null ? bytes.longValue() : 0);
+        if (expected > config.textureMemoryBudget) {
+            Gdx.app.debug(TAG, "Not prefetching " + asset.getFileDescriptor() + ", over budget");
+            return false;
+        }
+        final Residency residency = new Residency(asset);
+        residents.put(asset, residency);
+        lookup.put(asset, residency);
+        assets.loadAsset(asset);
+        return true;
+    }
+
+    /**
+     * Cancel a prefetch started by {@link #prefetch(Asset)}. This has no
+     * effect if the asset has been acquired in the meantime; an asset that has
+     * already finished loading simply stays resident as an idle asset.
+     *
+     * @param asset the asset to stop prefetching
+     */
+    public <T> void cancelPrefetch(Asset<T> asset) {
+        final Residency residency = lookup.get(asset);
+        if (residency != null && residency.owners.isEmpty() && residency.bytes < 0) {
+            Gdx.app.debug(TAG, "Cancelling prefetch of " + asset.getFileDescriptor());
+            residents.remove(asset);
+            lookup.remove(asset);
+            unload(asset);
+        }
+    }
+
+    /**
+     * @return true if any acquired or prefetched asset is still loading
+     */
+    public boolean isLoading() {
+        for (Residency residency : residents.values()) {
+            if (residency.bytes < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Release an asset previously acquired by an owner. When no owner is left
+     * the asset stays resident until memory pressure forces it out.
+     *
+     * @param owner the object holding the asset
+     * @param asset the asset to release
+     */
+    public <T> void release(Object owner, Asset<T> asset) {
+        final Residency residency = residents.get(asset);
+        if (residency == null || !residency.owners.remove(owner)) {
+            Gdx.app.error(TAG, "Asset " + asset.getFileDescriptor() + " is not held by " + owner);
+            assert false;
+            return;
+        }
+        trim();
+    }
+
+    /**
+     * Release all assets held by an owner.
+     *
+     * @param owner the object holding the assets
+     */
+    public void releaseAll(Object owner) {
+        for (Residency residency : residents.values()) {
+            residency.owners.remove(owner);
+        }
+        trim();
+    }
+
+    /**
+     * Asynchronously updates outstanding assets within a time budget, see
+     * {@link TamagotchiAssets#update(int)}, and accounts for the memory used
+     * by the assets that finished loading.
+     *
+     * @param millis the time budget for this call, in milliseconds
+     * @return true if all assets are finished loading
+     */
+    public boolean update(int millis) {
+        final boolean done = assets.update(millis);
+        boolean loadedSome = false;
+        for (Residency residency : residents.values()) {
+            if (residency.bytes < 0 && assets.isLoaded(residency.asset)) {
+                residency.bytes = measure(residency.asset);
+                residentBytes += residency.bytes;
+                knownBytes.put(residency.asset, Long.valueOf(residency.bytes));
+                loadedSome = true;
+            }
+        }
+        if (loadedSome) {
+            trim();
+        }
+        return done;
+    }
+
+    /**
+     * Evict idle assets, least recently used first, until the resident assets
+     * fit into the texture memory budget again.
+     */
+    public void trim() {
+        final Iterator<Residency> it = residents.values().iterator();
+        while (residentBytes > config.textureMemoryBudget && it.hasNext()) {
+            final Residency residency = it.next();
+            if (residency.owners.isEmpty() && residency.bytes >= 0) {
+                Gdx.app.debug(TAG, "Evicting " + residency.asset.getFileDescriptor() + " ("
+                        + residency.bytes + " bytes)");
+                it.remove();
+                lookup.remove(residency.asset);
+                residentBytes -= residency.bytes;
+                unload(residency.asset);
+            }
+        }
+        if (residentBytes > config.textureMemoryBudget) {
+            Gdx.app.log(TAG, "Texture memory budget exceeded by assets in use: "
+                    + residentBytes + " > " + config.textureMemoryBudget + " bytes");
+        }
+    }
+
+    private <T> void unload(Asset<T> asset) {
+        if (assets.isLoaded(asset)) {
+            final Object object = assets.getAsset(asset);
+            if (object instanceof TextureAtlas) {
+                animations.remove((TextureAtlas) object);
+            }
+        }
+        assets.unloadAsset(asset);
+    }
+
+    /**
+     * @return the animations of the creatures, by resident atlas
+     */
+    public CreatureAnimationCache getAnimations() {
+        return animations;
+    }
+
+    /**
+     * @param asset the asset to check
+     * @return true if the asset is loaded and kept in memory by this manager
+     */
+    public <T> boolean isResident(Asset<T> asset) {
+        final Residency residency = lookup.get(asset);
+        return residency != null && residency.bytes >= 0;
+    }
+
+    /**
+     * @return the texture memory used by all resident assets, in bytes
+     */
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * @return the number of assets that are loaded or loading
+     */
+    public int getResidentCount() {
+        return residents.size();
+    }
+
+    /**
+     * @return a human readable report of the resident assets, their memory
+     *         usage and owners, least recently used first
+     */
+    public String getDiagnostics() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("Resident assets: ").append(residentBytes).append('/')
+                .append(config.textureMemoryBudget).append(" bytes\n");
+        for (Residency residency : residents.values()) {
+            sb.append(residency.asset.getFileDescriptor()).append(": ");
+            if (residency.bytes < 0) {
+                sb.append("loading");
+            } else {
+                sb.append(residency.bytes).append(" bytes");
+            }
+            sb.append(", owners: ").append(residency.owners.size()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private <T> long measure(Asset<T> asset) {
+        final Object object = assets.getAsset(asset);
+        long bytes = 0;
+        if (object instanceof TextureAtlas) {
+            for (Texture texture : ((TextureAtlas) object).getTextures()) {
+                bytes += getTextureBytes(texture);
+                final Texture alphaPage = atlasLoader != null ? atlasLoader.getAlphaPage(texture)
+                        : null;
+                if (alphaPage != null) {
+                    bytes += getTextureBytes(alphaPage);
+                }
+            }
+        } else if (object instanceof BitmapFont) {
+            bytes += getTextureBytes(((BitmapFont) object).getRegion().getTexture());
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimate the amount of GPU memory used by a texture.
+     *
+     * @param texture the texture to measure
+     * @return the size of the texture in bytes
+     */
+    public static long getTextureBytes(Texture texture) {
+        final TextureData data = texture.getTextureData();
+        final long pixels = (long) texture.getWidth() * texture.getHeight();
+        long bytes;
+        if (data.getType() == TextureDataType.Compressed) {
+            // ETC1 stores 4 bits per pixel
+            bytes = pixels / 2;
+        } else {
+            switch (data.getFormat()) {
+                case Alpha:
+                case Intensity:
+                    bytes = pixels;
+                    break;
+                case LuminanceAlpha:
+                case RGB565:
+                case RGBA4444:
+                    bytes = pixels * 2;
+                    break;
+                case RGB888:
+                    bytes = pixels * 3;
+                    break;
+                default:
+                    bytes = pixels * 4;
+                    break;
+            }
+        }
+        if (data.useMipMaps()) {
+            bytes += bytes / 3;
+        }
+        return bytes;
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.redditandroiddevelopers.tamagotchi;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.redditandroiddevelopers.tamagotchi.utils.FrameStats;
+
+import java.util.Arrays;
+
+/**
+ * Adapts the {@link QualityTier} to what the device manages. Every few
+ * seconds, the 90th percentile of the recent frame times of the current
+ * screen is compared to the frame budget: the quality is stepped down when
+ * frames come close to the budget, and stepped up again once there has been
+ * plenty of headroom for a while. Screens read the current tier to decide
+ * what to draw, and frames are throttled to its target frame rate.
+ */
+public class QualityGovernor {
+
+    private static final String TAG = "Tamagotchi:QualityGovernor";
+
+    /** Time in seconds between evaluations of the frame times */
+    private static final float EVALUATION_INTERVAL = 2;
+    /** Frames needed for an evaluation, so idle screens are not judged */
+    private static final int MIN_FRAMES = 30;
+    private static final int PERCENTILE = 90;
+    /** Step down when the percentile exceeds this share of the budget */
+    private static final float STEP_DOWN_LOAD = 0.85f;
+    /** Consider stepping up when the percentile stays below this share */
+    private static final float STEP_UP_LOAD = 0.5f;
+    /** Calm evaluations in a row needed to step up */
+    private static final int STEP_UP_EVALUATIONS = 3;
+
+    private final TamagotchiConfiguration config;
+    private QualityTier tier = QualityTier.HIGH;
+
+    /** Scratch space to sort the frame times in */
+    private final long[] frameNanos = new long[FrameStats.CAPACITY];
+    private FrameStats lastStats;
+    private long lastTotalFrames;
+    private float sinceEvaluation;
+    private int calmEvaluations;
+    private long lastPercentile;
+    private long lastFrameMillis;
+
+    public QualityGovernor(TamagotchiConfiguration config) {
+        this.config = config;
+    }
+
+    /**
+     * @return the current quality tier
+     */
+    public QualityTier getTier() {
+        return tier;
+    }
+
+    /**
+     * Called once per frame.
+     *
+     * @param stats the statistics of the current screen
+     * @param delta time in seconds since the last frame
+     */
+    public void update(FrameStats stats, float delta) {
+        if (!config.adaptiveQuality) {
+            return;
+        }
+        if (stats != lastStats || stats.getTotalFrames() < lastTotalFrames) {
+            // another screen, or its statistics were cleared
+            lastStats = stats;
+            lastTotalFrames = stats.getTotalFrames();
+            sinceEvaluation = 0;
+            return;
+        }
+        sinceEvaluation += delta;
+        if (sinceEvaluation < EVALUATION_INTERVAL) {
+            return;
+        }
+        final int frames = (int) Math.min(stats.getTotalFrames() - lastTotalFrames,
+                stats.getCount());
+        if (frames < MIN_FRAMES) {
+            return;
+        }
+        sinceEvaluation = 0;
+        lastTotalFrames = stats.getTotalFrames();
+
+        for (int age = 0; age < frames; age++) {
+            frameNanos[age] = stats.getFrameNanos(age);
+        }
+        Arrays.sort(frameNanos, 0, frames);
+        lastPercentile = frameNanos[(frames - 1) * PERCENTILE / 100];
+
+        final QualityTier higher = tier.higher();
+        if (lastPercentile > tier.getFrameBudget() * STEP_DOWN_LOAD && tier.lower() != null) {
+            setTier(tier.lower());
+        } else if (higher != null
+                && lastPercentile < higher.getFrameBudget() * STEP_UP_LOAD) {
+            if (++calmEvaluations >= STEP_UP_EVALUATIONS) {
+                setTier(higher);
+            }
+        } else {
+            calmEvaluations = 0;
+        }
+    }
+
+    private void setTier(QualityTier tier) {
+        Gdx.app.log(TAG, "Quality " + this.tier + " -> " + tier + ", "
+                + PERCENTILE + "th percentile frame time " + lastPercentile / 1000 + " us");
+        this.tier = tier;
+        calmEvaluations = 0;
+    }
+
+    /**
+     * Sleep away the rest of the frame if the current tier renders at a lower
+     * frame rate than the display. Called at the end of each frame.
+     */
+    public void limitFrameRate() {
+        final long now = TimeUtils.millis();
+        if (tier.targetFps < QualityTier.HIGH.targetFps && Gdx.graphics.isContinuousRendering()) {
+            final long sleep = lastFrameMillis + 1000 / tier.targetFps - now;
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        lastFrameMillis = TimeUtils.millis();
+    }
+
+    /**
+     * @return a human readable summary of the governor's state
+     */
+    public String getDiagnostics() {
+        return "Quality " + tier + " (" + tier.targetFps + " fps), " + PERCENTILE
+                + "th percentile frame time " + lastPercentile / 1000 + " us";
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.redditandroiddevelopers.tamagotchi;
+
+/**
+ * The quality levels the {@link QualityGovernor} steps through, from the
+ * best looking to the cheapest one.
+ */
+public enum QualityTier {
+
+    HIGH(60, 3, 1f),
+    MEDIUM(60, 2, 0.5f),
+    LOW(30, 1, 0.25f);
+
+    /** The frame rate to render at */
+    public final int targetFps;
+    /** How many layers the distant background of the main game shows */
+    public final int backgroundLayers;
+    /** Factor for the amount of effects, e.g. particles */
+    public final float effectsScale;
+
+    private QualityTier(int targetFps, int backgroundLayers, float effectsScale) {
+        this.targetFps = targetFps;
+        this.backgroundLayers = backgroundLayers;
+        this.effectsScale = effectsScale;
+    }
+
+    /**
+     * @return the time available for a frame, in nanoseconds
+     */
+    public long getFrameBudget() {
+        return 1000000000L / targetFps;
+    }
+
+    /**
+     * @return the next cheaper tier, or null if this is the cheapest one
+     */
+    public QualityTier lower() {
+        final QualityTier[] tiers = values();
+        return ordinal() + 1 < tiers.length ? tiers[ordinal() + 1] : null;
+    }
+
+    /**
+     * @return the next better tier, or null if this is the best one
+     */
+    public QualityTier higher() {
+        return ordinal() > 0 ? values()[ordinal() - 1] : null;
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.redditandroiddevelopers.tamagotchi;
+
+import com.badlogic.gdx.Gdx;
+import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets.Asset;
+import com.redditandroiddevelopers.tamagotchi.screens.CommonScreen;
+
+import java.util.ArrayList;
+
+/**
+ * Warms up the assets of the screen the player is most likely to visit next.
+ * Transitions between the {@code TamagotchiGame.STATE_*} states are weighted,
+ * both by configured edges and by the transitions observed while playing.
+ * Whenever the current screen is idle, the assets of the most likely next
+ * state are prefetched through the {@link AssetResidencyManager}, so the
+ * common screen switches do not have to wait for anything.
+ */
+public class ScreenPrefetcher {
+
+    private static final String TAG = "Tamagotchi:ScreenPrefetcher";
+
+    private final TamagotchiGame game;
+
+    /** Transition weights, indexed by [from state][to state] */
+    private final int[][] weights;
+
+    /** Assets we have started prefetching and that are not acquired yet */
+    private final ArrayList<Asset<?>> prefetching = new ArrayList<Asset<?>>();
+
+    private int currentState = -1;
+    private int prefetchedState = -1;
+
+    public ScreenPrefetcher(TamagotchiGame game, int numStates) {
+        this.game = game;
+        weights = new int[numStates][numStates];
+    }
+
+    /**
+     * Configure a likely transition between two states.
+     *
+     * @param from the state the transition starts at
+     * @param to the state the transition leads to
+     * @param weight how likely the transition is, relative to the others
+     *            starting at the same state
+     */
+    public void addTransition(int from, int to, int weight) {
+        weights[from][to] += weight;
+    }
+
+    /**
+     * Must be called whenever the game switches states. Learns the transition
+     * and cancels prefetches that are not needed by the new state.
+     *
+     * @param to the new state
+     */
+    public void onTransition(int to) {
+        if (currentState >= 0) {
+            weights[currentState][to]++;
+        }
+        currentState = to;
+        // keep whatever the new screen is about to acquire anyway
+        final Asset<?>[] needed = game.getScreenForState(to).getAssets();
+        for (Asset<?> asset : prefetching) {
+            if (!contains(needed, asset)) {
+                game.residency.cancelPrefetch(asset);
+            }
+        }
+        prefetching.clear();
+        prefetchedState = -1;
+    }
+
+    /**
+     * @param from the state to predict a transition from
+     * @return the most likely state following {@code from}, or -1 if there is
+     *         no known transition
+     */
+    public int predictNextState(int from) {
+        int best = -1;
+        int bestWeight = 0;
+        final int[] row = weights[from];
+        for (int to = 0; to < row.length; to++) {
+            if (to != from && row[to] > bestWeight) {
+                best = to;
+                bestWeight = row[to];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Called once per frame. Starts prefetching once the current screen is
+     * idle and drives the loading of prefetched assets.
+     */
+    public void update() {
+        if (!game.config.prefetch || currentState < 0) {
+            return;
+        }
+        final CommonScreen screen = game.getScreenForState(currentState);
+        if (!screen.isReady()) {
+            // the current screen is still streaming in its own assets
+            return;
+        }
+        if (prefetchedState < 0) {
+            prefetchedState = predictNextState(currentState);
+            if (prefetchedState < 0) {
+                return;
+            }
+            Gdx.app.debug(TAG, "Prefetching state " + prefetchedState);
+            for (Asset<?> asset : game.getScreenForState(prefetchedState).getAssets()) {
+                if (!game.residency.isResident(asset) && game.residency.prefetch(asset)) {
+                    prefetching.add(asset);
+                }
+            }
+        }
+        if (!prefetching.isEmpty() && game.residency.update(game.config.prefetchBudget)) {
+            prefetching.clear();
+        }
+    }
+
+    /**
+     * @return true if assets are being prefetched, which only advances while
+     *         frames are rendered
+     */
+    public boolean isBusy() {
+        return !prefetching.isEmpty();
+    }
+
+    /**
+     * Cancel all outstanding prefetches.
+     */
+    public void cancel() {
+        for (Asset<?> asset : prefetching) {
+            game.residency.cancelPrefetch(asset);
+        }
+        prefetching.clear();
+    }
+
+    private static boolean contains(Asset<?>[] assets, Asset<?> asset) {
+        for (Asset<?> a : assets) {
+            if (a == asset) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
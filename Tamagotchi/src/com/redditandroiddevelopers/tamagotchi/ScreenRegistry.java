@@ -0,0 +1,200 @@
+package com.redditandroiddevelopers.tamagotchi;
+
+import com.badlogic.gdx.Gdx;
+import com.redditandroiddevelopers.tamagotchi.screens.CommonScreen;
+import com.redditandroiddevelopers.tamagotchi.screens.CreatureCreationScreen;
+import com.redditandroiddevelopers.tamagotchi.screens.MainGameScreen;
+import com.redditandroiddevelopers.tamagotchi.screens.MainMenuScreen;
+import com.redditandroiddevelopers.tamagotchi.screens.PauseScreen;
+
+/**
+ * Creates the screens of the {@code TamagotchiGame.STATE_*} states on first
+ * use and keeps the history of visited states for going back. The history is
+ * bounded by {@link TamagotchiConfiguration#screenHistoryLimit}; visiting a
+ * state that is already in the history goes back to it instead of growing
+ * the history. When the assets in use exceed the texture memory budget, the
+ * scenes of the screens that were used least recently are released, and
+ * screens that cannot be gone back to are dropped entirely.
+ */
+public class ScreenRegistry {
+
+    private static final String TAG = "Tamagotchi:ScreenRegistry";
+
+    private final TamagotchiGame game;
+
+    /** The screens created so far, indexed by state */
+    private final CommonScreen[] screens;
+    /** When each screen was last switched to, in switches */
+    private final int[] lastUsed;
+    private int switches;
+
+    /** The visited states, oldest first; the last one is the current state */
+    private final int[] history;
+    private int historySize;
+
+    public ScreenRegistry(TamagotchiGame game, int numStates) {
+        this.game = game;
+        screens = new CommonScreen[numStates];
+        lastUsed = new int[numStates];
+        history = new int[Math.max(1, game.config.screenHistoryLimit)];
+    }
+
+    private CommonScreen createScreen(int state) {
+        switch (state) {
+            case TamagotchiGame.STATE_MAIN_MENU:
+                return new MainMenuScreen(game);
+            case TamagotchiGame.STATE_MAIN_GAME:
+                return new MainGameScreen(game);
+            case TamagotchiGame.STATE_PAUSED:
+                return new PauseScreen(game);
+            case TamagotchiGame.STATE_SELECT_PET:
+                // TODO: implement PetSelectionScreen
+                return new CreatureCreationScreen(game);
+            case TamagotchiGame.STATE_MEMORIES:
+                // TODO: implement MemoriesScreen
+                return new PauseScreen(game);
+            case TamagotchiGame.STATE_SETTINGS:
+                // TODO: implement SettingsScreen
+                return new PauseScreen(game);
+            default:
+                throw new IllegalArgumentException("Invalid state value");
+        }
+    }
+
+    /**
+     * @param state the int val of a state
+     * @return the screen of that state, created if necessary
+     */
+    public CommonScreen get(int state) {
+        CommonScreen screen = screens[state];
+        if (screen == null) {
+            Gdx.app.debug(TAG, "Creating screen for state " + state);
+            screen = createScreen(state);
+            screens[state] = screen;
+        }
+        return screen;
+    }
+
+    /**
+     * Record a switch to a state. If the state is in the history already, the
+     * history goes back to it; if the history is full, its oldest entry is
+     * forgotten.
+     *
+     * @param state the new state
+     */
+    public void push(int state) {
+        for (int i = 0; i < historySize; i++) {
+            if (history[i] == state) {
+                historySize = i;
+                break;
+            }
+        }
+        if (historySize == history.length) {
+            System.arraycopy(history, 1, history, 0, historySize - 1);
+            historySize--;
+        }
+        history[historySize++] = state;
+        lastUsed[state] = ++switches;
+    }
+
+    /**
+     * Go back in the history.
+     *
+     * @return the state before the current one, which is the current state
+     *         now, or -1 if there is none and nothing changed
+     */
+    public int pop() {
+        if (historySize < 2) {
+            return -1;
+        }
+        historySize--;
+        final int state = history[historySize - 1];
+        lastUsed[state] = ++switches;
+        return state;
+    }
+
+    /**
+     * @return the current state, or -1 if no state has been visited yet
+     */
+    public int getCurrentState() {
+        return historySize > 0 ? history[historySize - 1] : -1;
+    }
+
+    private boolean isInHistory(int state) {
+        for (int i = 0; i < historySize; i++) {
+            if (history[i] == state) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Release the scenes of cold screens, least recently used first, while
+     * the assets in use exceed the texture memory budget.
+     */
+    public void trim() {
+        while (game.residency.getResidentBytes() > game.config.textureMemoryBudget) {
+            final int state = findColdest();
+            if (state < 0) {
+                return;
+            }
+            release(state);
+        }
+    }
+
+    /**
+     * Release the scenes of all screens but the current one, e.g. when the
+     * application goes to the background.
+     */
+    public void releaseCold() {
+        final int current = getCurrentState();
+        for (int state = 0; state < screens.length; state++) {
+            if (state != current && screens[state] != null) {
+                release(state);
+            }
+        }
+    }
+
+    /**
+     * @return the least recently used screen that still holds a scene, other
+     *         than the current one, or -1 if there is none
+     */
+    private int findColdest() {
+        final int current = getCurrentState();
+        int coldest = -1;
+        for (int state = 0; state < screens.length; state++) {
+            final CommonScreen screen = screens[state];
+            if (state == current || screen == null || !screen.hasScene()) {
+                continue;
+            }
+            if (coldest < 0 || lastUsed[state] < lastUsed[coldest]) {
+                coldest = state;
+            }
+        }
+        return coldest;
+    }
+
+    private void release(int state) {
+        Gdx.app.debug(TAG, "Releasing screen for state " + state);
+        screens[state].releaseScene();
+        if (!isInHistory(state)) {
+            // nothing leads back to it; it is created again when needed
+            screens[state] = null;
+        }
+    }
+
+    /**
+     * Release the scenes of all screens and forget them.
+     */
+    public void dispose() {
+        for (int state = 0; state < screens.length; state++) {
+            if (screens[state] != null) {
+                screens[state].releaseScene();
+                screens[state] = null;
+            }
+        }
+        historySize = 0;
+    }
+
+}
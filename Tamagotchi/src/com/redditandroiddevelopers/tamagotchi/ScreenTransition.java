@@ -0,0 +1,198 @@
+package com.redditandroiddevelopers.tamagotchi;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.Interpolation;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+import com.redditandroiddevelopers.tamagotchi.screens.CommonScreen;
+
+/**
+ * Animates the switch between two screens. The last frame of the outgoing
+ * screen is rendered into an off-screen {@link FrameBuffer} and composited
+ * over the incoming screen, fading or sliding it away. The incoming screen
+ * streams in its assets in the meantime, so the player never looks at a
+ * frozen frame: while it is not ready, the animation holds half way and only
+ * completes once the incoming screen is drawn, or once it held for
+ * {@link #MAX_HOLD_TIME}, so a screen that never gets ready does not keep the
+ * outgoing one on screen forever. Requires OpenGL ES 2.0; without it,
+ * screens switch instantly.
+ */
+public class ScreenTransition implements Disposable {
+
+    /**
+     * The ways the outgoing screen leaves.
+     */
+    public enum Style {
+        /** The screens switch instantly */
+        NONE,
+        CROSSFADE,
+        /** The outgoing screen slides out to the left */
+        SLIDE_LEFT,
+        /** The outgoing screen slides out to the right */
+        SLIDE_RIGHT;
+
+        /**
+         * @return the style to use when going back through this transition
+         */
+        public Style reverse() {
+            switch (this) {
+                case SLIDE_LEFT:
+                    return SLIDE_RIGHT;
+                case SLIDE_RIGHT:
+                    return SLIDE_LEFT;
+                default:
+                    return this;
+            }
+        }
+    }
+
+    /** Progress at which the animation waits for the incoming screen */
+    private static final float HOLD_PROGRESS = 0.5f;
+    /** The longest time in seconds the animation waits for the screen */
+    private static final float MAX_HOLD_TIME = 3;
+
+    /** Has the size of the display, see {@link #resize(int, int)} */
+    private FrameBuffer snapshot;
+    /** Draws the snapshot, without the color grading of the screens */
+    private final SpriteBatch batch;
+    private final Matrix4 projection = new Matrix4();
+
+    private Style style = Style.NONE;
+    private CommonScreen incoming;
+    /** Duration of the animation in seconds */
+    private float duration;
+    private float elapsed;
+    /** Time in seconds the animation has held so far */
+    private float held;
+
+    /**
+     * Must be created on the GL thread; {@link #isSupported()} must be true.
+     */
+    public ScreenTransition() {
+        batch = new SpriteBatch(1);
+        resize(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+    }
+
+    /**
+     * Match the size of the display. A running animation is cancelled, since
+     * its snapshot no longer fits.
+     *
+     * @param width the width of the display in pixels
+     * @param height the height of the display in pixels
+     */
+    public void resize(int width, int height) {
+        if (snapshot != null) {
+            if (snapshot.getWidth() == width && snapshot.getHeight() == height) {
+                return;
+            }
+            cancel();
+            snapshot.dispose();
+        }
+        snapshot = new FrameBuffer(Pixmap.Format.RGB565, width, height, false);
+        projection.setToOrtho2D(0, 0, width, height);
+    }
+
+    /**
+     * @return true if screens can be rendered off-screen on this device
+     */
+    public static boolean isSupported() {
+        return Gdx.graphics.isGL20Available();
+    }
+
+    /**
+     * Capture the outgoing screen and start animating. Must be called before
+     * the outgoing screen is hidden.
+     *
+     * @param style how the outgoing screen leaves
+     * @param duration the duration of the animation in seconds
+     * @param outgoing the current screen, must be ready
+     * @param incoming the screen that is about to be shown
+     */
+    public void start(Style style, float duration, CommonScreen outgoing, CommonScreen incoming) {
+        snapshot.begin();
+        outgoing.drawSnapshot();
+        snapshot.end();
+        this.style = style;
+        this.duration = duration;
+        this.incoming = incoming;
+        elapsed = 0;
+        held = 0;
+    }
+
+    /**
+     * @return true while the transition animates
+     */
+    public boolean isActive() {
+        return incoming != null;
+    }
+
+    /**
+     * Stop animating right away.
+     */
+    public void cancel() {
+        incoming = null;
+    }
+
+    /**
+     * Advance the animation and composite the outgoing screen over the frame
+     * the incoming screen has just rendered.
+     *
+     * @param delta the time in seconds since the last frame
+     */
+    public void render(float delta) {
+        if (incoming == null) {
+            return;
+        }
+        elapsed += delta;
+        float progress = Math.min(1, elapsed / duration);
+        if (!incoming.isReady() && progress > HOLD_PROGRESS && held < MAX_HOLD_TIME) {
+            // keep something on screen until the incoming screen can be drawn
+            held += delta;
+            progress = HOLD_PROGRESS;
+            elapsed = HOLD_PROGRESS * duration;
+        }
+
+        final Texture texture = snapshot.getColorBufferTexture();
+        final int width = texture.getWidth();
+        final int height = texture.getHeight();
+        float x = 0;
+        float alpha = 1;
+        switch (style) {
+            case CROSSFADE:
+                alpha = 1 - Interpolation.fade.apply(progress);
+                break;
+            case SLIDE_LEFT:
+                x = -width * Interpolation.fade.apply(progress);
+                break;
+            case SLIDE_RIGHT:
+                x = width * Interpolation.fade.apply(progress);
+                break;
+            default:
+                progress = 1;
+                break;
+        }
+
+        if (progress < 1) {
+            batch.setProjectionMatrix(projection);
+            batch.begin();
+            batch.setColor(1, 1, 1, alpha);
+            // frame buffer textures are upside down
+            batch.draw(texture, x, 0, width, height, 0, 0, width, height, false, true);
+            batch.end();
+        } else {
+            incoming = null;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        incoming = null;
+        snapshot.dispose();
+        batch.dispose();
+    }
+
+}
@@ -3,8 +3,12 @@ package com.redditandroiddevelopers.tamagotchi;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.util.HashMap;
 
 /**
  * Collect all assets referenced throughout the game.
@@ -15,6 +19,24 @@ public class TamagotchiAssets {
 
     private static final String TAG = "Tamagotchi:Assets";
 
+    /**
+     * The manifest written by the desktop AssetPipeline, listing the source
+     * hash and page images of every packed texture atlas.
+     */
+    public static final String ATLAS_MANIFEST = "atlases.manifest";
+
+    /**
+     * The directory holding the compressed variants of all texture atlases,
+     * with ETC1 pages where possible.
+     */
+    public static final String COMPRESSED_DIR = "etc1/";
+
+    /**
+     * Replaces the {@code .etc1} extension of a compressed page with
+     * transparency to name the ETC1 page holding its alpha channel.
+     */
+    public static final String ALPHA_PAGE_SUFFIX = ".alpha.etc1";
+
     private final AssetManager assetManager;
 
     public interface Asset<T> {
@@ -51,22 +73,48 @@ public class TamagotchiAssets {
 
     public enum FontAsset implements Asset<BitmapFont> {
 
-        ROBOTO("fonts/Roboto.fnt");
-        // TODO: need moar fonts!
+        ROBOTO_SMALL("fonts/Roboto-Regular.ttf", 25f),
+        ROBOTO_MEDIUM("fonts/Roboto-Regular.ttf", 40f),
+        ROBOTO_LARGE("fonts/Roboto-Regular.ttf", 80f);
 
-        /**
-         * A BMFont file. The image file for texture should be in the same
-         * directory.
-         */
+        /** A TrueType font file, baked by the FontCache */
         private final String fontFile;
+        /** The height of the font in stage units */
+        private final float size;
+        private final String fileDescriptor;
 
-        private FontAsset(String fontFile) {
+        private FontAsset(String fontFile, float size) {
             this.fontFile = fontFile;
+            this.size = size;
+            fileDescriptor = fontFile + "@" + (int) size;
+        }
+
+        public String getFontFile() {
+            return fontFile;
+        }
+
+        public float getSize() {
+            return size;
+        }
+
+        /**
+         * @param fileDescriptor a file descriptor as returned by
+         *            {@link #getFileDescriptor()}
+         * @return the matching font asset, or null if there is none
+         */
+        public static FontAsset forFileDescriptor(String fileDescriptor) {
+            for (FontAsset fontAsset : values()) {
+                if (fontAsset.fileDescriptor.equals(fileDescriptor)) {
+                    return fontAsset;
+                }
+            }
+            return null;
         }
 
         @Override
         public String getFileDescriptor() {
-            return fontFile;
+            // a logical name, the baked files live in the FontCache
+            return fileDescriptor;
         }
 
         @Override
@@ -104,6 +152,49 @@ public class TamagotchiAssets {
         assetManager.unload(fd);
     }
 
+    /**
+     * Check that every texture atlas has been packed by the asset pipeline
+     * and that all of its pages are present. Problems are logged rather than
+     * thrown, as the atlases might still load fine.
+     *
+     * @return true if all atlases are accounted for
+     */
+    public boolean checkManifest() {
+        final FileHandle manifestFile = Gdx.files.internal(ATLAS_MANIFEST);
+        if (!manifestFile.exists()) {
+            Gdx.app.error(TAG, "Missing " + ATLAS_MANIFEST + ", run the AssetPipeline");
+            return false;
+        }
+        final HashMap<String, String[]> manifest = new HashMap<String, String[]>();
+        for (String line : manifestFile.readString().split("\n")) {
+            line = line.trim();
+            if (line.length() == 0 || line.startsWith("#")) {
+                continue;
+            }
+            final String[] fields = line.split("\\s+");
+            manifest.put(fields[0], fields);
+        }
+        boolean ok = true;
+        for (TextureAtlasAsset textureAtlasAsset : TextureAtlasAsset.values()) {
+            final FileHandle packFile = Gdx.files.internal(textureAtlasAsset.getFileDescriptor());
+            final String atlas = packFile.parent().name();
+            final String[] fields = manifest.get(atlas);
+            if (fields == null || !packFile.exists()) {
+                Gdx.app.error(TAG, "Atlas " + atlas + " has not been packed");
+                ok = false;
+                continue;
+            }
+            // fields are: atlas name, source hash, page images
+            for (int i = 2; i < fields.length; i++) {
+                if (!packFile.parent().child(fields[i]).exists()) {
+                    Gdx.app.error(TAG, "Atlas " + atlas + " is missing page " + fields[i]);
+                    ok = false;
+                }
+            }
+        }
+        return ok;
+    }
+
     /**
      * Asynchronously load all assets. Test for completion by calling
      * {@link TamagotchiAssets#update()} or
@@ -143,6 +234,42 @@ public class TamagotchiAssets {
         return assetManager.update();
     }
 
+    /**
+     * Asynchronously updates outstanding assets, spending at most roughly
+     * {@code millis} milliseconds before returning control to the caller. This
+     * lets the render thread keep drawing frames while assets stream in.
+     * Returns early as soon as an update makes no progress, i.e. while the
+     * loader thread is still reading, instead of spinning until the budget is
+     * used up.
+     * 
+     * @param millis the time budget for this call, in milliseconds
+     * @return true if all assets are finished loading
+     */
+    public boolean update(int millis) {
+        final long endTime = TimeUtils.millis() + millis;
+        while (true) {
+            final int loaded = assetManager.getLoadedAssets();
+            final int queued = assetManager.getQueuedAssets();
+            final boolean done = assetManager.update();
+            if (done || TimeUtils.millis() > endTime) {
+                return done;
+            }
+            // a finished asset or dependency changes one of the counts
+            if (loaded == assetManager.getLoadedAssets()
+                    && queued == assetManager.getQueuedAssets()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @param asset the asset to check
+     * @return true if the asset is finished loading and can be retrieved
+     */
+    public <T> boolean isLoaded(Asset<T> asset) {
+        return assetManager.isLoaded(asset.getFileDescriptor());
+    }
+
     /**
      * @return the progress of asset loading in percentage
      */
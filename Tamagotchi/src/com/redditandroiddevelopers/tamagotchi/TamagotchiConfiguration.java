@@ -10,6 +10,7 @@ import com.redditandroiddevelopers.tamagotchi.dao.CreatureStateDao;
 import com.redditandroiddevelopers.tamagotchi.dao.ExperienceDao;
 import com.redditandroiddevelopers.tamagotchi.dao.MedicineDao;
 import com.redditandroiddevelopers.tamagotchi.dao.SicknessDao;
+import com.redditandroiddevelopers.tamagotchi.utils.StartupTracer;
 
 /**
  * A place to store runtime configuration for use throughout the lifetime of a
@@ -22,10 +23,53 @@ public class TamagotchiConfiguration {
 
     public boolean debug = true;
     public boolean logFps = true;
+    /** Whether to show the render statistics overlay; requires debug */
+    public boolean showStats = false;
     public int logLevel = Application.LOG_DEBUG;
     public float stageWidth = 800;
     public float stageHeight = 480;
     public Color backgroundColor = new Color((226f / 255), (232f / 255), (254f / 255), 1f);
+    /**
+     * Times the startup until the main menu is interactive; launchers should
+     * replace it with one created as early as possible
+     */
+    public StartupTracer startupTracer = new StartupTracer();
+
+    // Rendering
+    /**
+     * Whether to only render frames on demand while the current screen is
+     * idle, instead of continuously
+     */
+    public boolean onDemandRendering = true;
+    /** Time in milliseconds between frames rendered while idle */
+    public int heartbeatInterval = 500;
+    /** Rate at which the game logic of the screens is stepped */
+    public int stepsPerSecond = 30;
+    /** Logic steps run at most in one frame to catch up after a slow one */
+    public int maxStepsPerFrame = 5;
+    /** Whether to lower the quality when frames take too long */
+    public boolean adaptiveQuality = true;
+    /** How screens switch, unless a transition is asked for explicitly */
+    public ScreenTransition.Style transitionStyle = ScreenTransition.Style.CROSSFADE;
+    /** Duration of screen transitions in seconds */
+    public float transitionDuration = 0.4f;
+    /** The number of visited screens remembered for going back */
+    public int screenHistoryLimit = 8;
+
+    // Assets
+    /** Time in milliseconds each frame may spend streaming in assets */
+    public int assetLoadBudget = 8;
+    /**
+     * Texture memory in bytes that idle assets may occupy before the least
+     * recently used ones are evicted
+     */
+    public long textureMemoryBudget = 16 * 1024 * 1024;
+    /** Whether to load the assets of the likely next screen ahead of time */
+    public boolean prefetch = true;
+    /** Time in milliseconds each idle frame may spend prefetching assets */
+    public int prefetchBudget = 4;
+    /** Whether to use ETC1 compressed texture atlases where supported */
+    public boolean compressedTextures = true;
 
     // Persistence
     public CreatureDao creatureDao;
@@ -12,14 +12,21 @@ import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
 import com.badlogic.gdx.assets.loaders.resolvers.ResolutionFileResolver;
 import com.badlogic.gdx.assets.loaders.resolvers.ResolutionFileResolver.Resolution;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.redditandroiddevelopers.tamagotchi.screens.CommonScreen;
-import com.redditandroiddevelopers.tamagotchi.screens.CreatureCreationScreen;
-import com.redditandroiddevelopers.tamagotchi.screens.MainGameScreen;
-import com.redditandroiddevelopers.tamagotchi.screens.MainMenuScreen;
-import com.redditandroiddevelopers.tamagotchi.screens.PauseScreen;
 import com.redditandroiddevelopers.tamagotchi.screens.SplashScreen;
+import com.redditandroiddevelopers.tamagotchi.simulation.NeedsSimulation;
+import com.redditandroiddevelopers.tamagotchi.ui.StatsOverlay;
+import com.redditandroiddevelopers.tamagotchi.utils.CachedFontLoader;
+import com.redditandroiddevelopers.tamagotchi.utils.ColorGrading;
+import com.redditandroiddevelopers.tamagotchi.utils.CompressedAtlasLoader;
+import com.redditandroiddevelopers.tamagotchi.utils.CompressedTextureResolver;
+import com.redditandroiddevelopers.tamagotchi.utils.CountingSpriteBatch;
+import com.redditandroiddevelopers.tamagotchi.utils.FontCache;
 
-import java.util.Stack;
+import java.util.Timer;
+import java.util.TimerTask;
 
 /**
  * The main activity for our game. This will be the only activity running in our
@@ -38,15 +45,42 @@ public class TamagotchiGame extends Game {
     public static final int STATE_SETTINGS = 5;
     public static final int NUM_SCREENS = 6;
 
-    private CommonScreen[] screens;
-    private Stack<CommonScreen> screenHistory;
+    /** Where the startup phases are reported, relative to the local storage */
+    private static final String STARTUP_REPORT_FILE = "stats/startup.json";
+
+    /** Sprites per batch, the same as the default of SpriteBatch */
+    private static final int SPRITE_BATCH_SIZE = 1000;
+
+    /** Creates the screens on first use and remembers the visited ones */
+    private ScreenRegistry screens;
 
     private GameInput gameInput;
+    /** Requests the idle frames while rendering on demand */
+    private Timer heartbeat;
+    /** Animates screen switches; null without GL20 */
+    private ScreenTransition transition;
+    /**
+     * Whether a screen switch is in progress, during which the outgoing
+     * screen is drawn into the transition and must not switch again
+     */
+    private boolean switchingScreens;
 
     public final TamagotchiConfiguration config;
     public InputMultiplexer inputMultiplexer;
     public AssetManager assetManager;
     public TamagotchiAssets assets;
+    public AssetResidencyManager residency;
+    public ScreenPrefetcher prefetcher;
+    /** Advances the needs of the creatures, on a thread of its own */
+    public NeedsSimulation simulation;
+    /** Decides how much the screens may draw */
+    public QualityGovernor quality;
+    /** The sprite batch shared by the stages of all screens */
+    public CountingSpriteBatch spriteBatch;
+    /** The color grading of the sprite batch; null without GL20 */
+    public ColorGrading colorGrading;
+    /** Shows the render statistics of the current screen, in debug builds */
+    public StatsOverlay statsOverlay;
 
     public TamagotchiGame(TamagotchiConfiguration config) {
         this.config = config;
@@ -54,94 +88,268 @@ public class TamagotchiGame extends Game {
 
     @Override
     public void create() {
+        config.startupTracer.begin("TamagotchiGame.create");
         // do first-time configurations that should live as long as the
         // application does
         Gdx.app.setLogLevel(config.logLevel);
+        if (Gdx.graphics.isGL20Available()) {
+            colorGrading = new ColorGrading();
+            spriteBatch = new CountingSpriteBatch(SPRITE_BATCH_SIZE, colorGrading);
+        } else {
+            spriteBatch = new CountingSpriteBatch();
+        }
+        if (config.debug) {
+            statsOverlay = new StatsOverlay();
+        }
+        if (ScreenTransition.isSupported()) {
+            transition = new ScreenTransition();
+        }
 
-        // create screen objects we're going to need throughout
-        screens = new CommonScreen[] {
-                new MainMenuScreen(this),
-                new MainGameScreen(this),
-                new PauseScreen(this),
-                new CreatureCreationScreen(this), // TODO: implement
-                                                  // PetSelectionScreen
-                new PauseScreen(this), // TODO: implement MemoriesScreen
-                new PauseScreen(this), // TODO: implement SettingsScreen
-        };
-
-        screenHistory = new Stack<CommonScreen>();
+        // screens are only created once they are needed
+        screens = new ScreenRegistry(this, NUM_SCREENS);
 
+        config.startupTracer.begin("TamagotchiGame.assetManagerSetup");
         final Resolution resolution = new Resolution(Gdx.graphics.getWidth(),
                 Gdx.graphics.getHeight(), "");
         final ResolutionFileResolver resolver = new ResolutionFileResolver(
                 new InternalFileHandleResolver(), resolution);
         assetManager = new AssetManager();
         assetManager.setLoader(Texture.class, new TextureLoader(resolver));
+        final CompressedAtlasLoader atlasLoader = new CompressedAtlasLoader(
+                new CompressedTextureResolver(new InternalFileHandleResolver(),
+                        config.compressedTextures));
+        assetManager.setLoader(TextureAtlas.class, atlasLoader);
+        spriteBatch.setAtlasLoader(atlasLoader);
+        assetManager.setLoader(BitmapFont.class, new CachedFontLoader(
+                new FontCache(config.stageWidth, config.stageHeight)));
 
         assets = new TamagotchiAssets(assetManager);
+        assets.checkManifest();
+        residency = new AssetResidencyManager(assets, config, atlasLoader);
+        config.startupTracer.end("TamagotchiGame.assetManagerSetup");
+
+        // the paths players usually take through the screens
+        prefetcher = new ScreenPrefetcher(this, NUM_SCREENS);
+        prefetcher.addTransition(STATE_MAIN_MENU, STATE_MAIN_GAME, 2);
+        prefetcher.addTransition(STATE_MAIN_MENU, STATE_SELECT_PET, 1);
+        prefetcher.addTransition(STATE_SELECT_PET, STATE_MAIN_GAME, 1);
+        prefetcher.addTransition(STATE_MAIN_GAME, STATE_PAUSED, 1);
+
+        quality = new QualityGovernor(config);
+
+        simulation = new NeedsSimulation();
+        simulation.start();
 
         gameInput = new GameInput();
         inputMultiplexer = new InputMultiplexer();
         inputMultiplexer.addProcessor(gameInput);
         Gdx.input.setCatchBackKey(true);
+        if (config.debug) {
+            // the menu key toggles the render statistics on devices
+            Gdx.input.setCatchMenuKey(true);
+        }
         Gdx.input.setInputProcessor(inputMultiplexer);
 
+        if (config.onDemandRendering) {
+            heartbeat = new Timer("Heartbeat", true);
+            heartbeat.scheduleAtFixedRate(new TimerTask() {
+                @Override
+                public void run() {
+                    Gdx.graphics.requestRendering();
+                }
+            }, config.heartbeatInterval, config.heartbeatInterval);
+        }
+
         setScreen(new SplashScreen(this));
+        config.startupTracer.end("TamagotchiGame.create");
     }
 
     @Override
     public void render() {
-        // TODO FrameBuffer here?
-
         // actually render the current screen
         super.render();
+
+        // then the outgoing screen over it, while switching screens
+        if (transition != null) {
+            transition.render(Gdx.graphics.getDeltaTime());
+        }
+
+        // use the remaining time of idle frames to warm up the next screen
+        prefetcher.update();
+
+        final CommonScreen screen = (CommonScreen) getScreen();
+        if (screen.isReady()) {
+            quality.update(screen.getStats(), Gdx.graphics.getDeltaTime());
+            if (screens.getCurrentState() == STATE_MAIN_MENU && config.startupTracer.isTracing()) {
+                // the player can interact with the game from now on
+                config.startupTracer.mark("interactive");
+                config.startupTracer.finish(Gdx.files.local(STARTUP_REPORT_FILE));
+            }
+        }
+
+        if (config.onDemandRendering) {
+            // input and the heartbeat wake idle screens up again
+            Gdx.graphics.setContinuousRendering(screen.needsContinuousRendering()
+                    || prefetcher.isBusy() || config.showStats
+                    || (transition != null && transition.isActive()));
+        }
+        quality.limitFrameRate();
+    }
+
+    /**
+     * @param state the int val of a state
+     * @return the screen shown for that state
+     */
+    public CommonScreen getScreenForState(int state) {
+        return screens.get(state);
     }
 
     /**
      * Update the state, all updates outside of this class should use this
-     * method
+     * method. The screens switch with the configured transition.
      * 
      * @param state The int val of the new state
      */
     public void updateState(int state) {
+        updateState(state, config.transitionStyle);
+    }
+
+    /**
+     * Update the state with a specific transition.
+     * 
+     * @param state The int val of the new state
+     * @param style how the current screen leaves
+     */
+    public void updateState(int state, ScreenTransition.Style style) {
         if (state < 0 || state >= NUM_SCREENS) {
             assert false;
             throw new IllegalArgumentException("Invalid state value");
         }
-        final CommonScreen screen = screens[state];
+        assert !switchingScreens : "Screens must not switch while switching screens";
+        if (switchingScreens) {
+            Gdx.app.error(TAG, "Ignoring a screen switch while switching screens");
+            return;
+        }
+        final CommonScreen screen = screens.get(state);
         Gdx.app.debug(TAG, "Setting screen to " + screen.getClass().getSimpleName());
-        screenHistory.push(screen);
-        setScreen(screen);
+        if (config.debug) {
+            Gdx.app.debug(TAG, residency.getDiagnostics());
+            Gdx.app.debug(TAG, quality.getDiagnostics());
+        }
+        screens.push(state);
+        prefetcher.onTransition(state);
+        switchScreen(screen, style);
     }
 
+    /**
+     * Go back to the previous screen in the history, reversing the configured
+     * transition.
+     */
     public void goToPreviousScreen() {
-        if (screenHistory.empty()) {
-            Gdx.app.log(TAG, "Screen history is empty!");
+        goToPreviousScreen(config.transitionStyle.reverse());
+    }
+
+    /**
+     * Go back to the previous screen in the history with a specific
+     * transition.
+     * 
+     * @param style how the current screen leaves
+     */
+    public void goToPreviousScreen(ScreenTransition.Style style) {
+        assert !switchingScreens : "Screens must not switch while switching screens";
+        if (switchingScreens) {
+            Gdx.app.error(TAG, "Ignoring a screen switch while switching screens");
             return;
         }
-
-        // first, pop the current screen
-        final CommonScreen curScreen = screenHistory.pop();
-        if (screenHistory.empty()) {
+        final int prevState = screens.pop();
+        if (prevState < 0) {
             Gdx.app.log(TAG, "No more screen to go back to");
-            // we need to push the currently only screen back into the stack
-            screenHistory.push(curScreen);
-            // and do nothing
             return;
         }
 
-        // finally, only peek into the previous screen
-        final CommonScreen prevScreen = screenHistory.peek();
+        final CommonScreen prevScreen = screens.get(prevState);
         Gdx.app.debug(TAG, "Going to a previous screen " + prevScreen.getClass().getSimpleName());
-        setScreen(prevScreen);
+        prefetcher.onTransition(prevState);
+        switchScreen(prevScreen, style);
+    }
+
+    private void switchScreen(CommonScreen screen, ScreenTransition.Style style) {
+        switchingScreens = true;
+        try {
+            if (transition != null) {
+                final CommonScreen current = (CommonScreen) getScreen();
+                // a screen that has not been drawn yet has nothing to fade out
+                if (style != ScreenTransition.Style.NONE && current != null && current.isReady()) {
+                    transition.start(style, config.transitionDuration, current, screen);
+                } else {
+                    transition.cancel();
+                }
+            }
+            setScreen(screen);
+            // the scenes of screens we left may not fit anymore
+            screens.trim();
+        } finally {
+            switchingScreens = false;
+        }
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        // the screens do not support resizing, their stages have a fixed size
+        if (transition != null) {
+            transition.resize(width, height);
+        }
+    }
+
+    @Override
+    public void pause() {
+        super.pause();
+        // a backgrounded application is the first to be killed for memory
+        screens.releaseCold();
+        // the missed ticks are caught up with on resume
+        simulation.stop();
+    }
+
+    @Override
+    public void resume() {
+        simulation.start();
+        super.resume();
     }
 
     @Override
     public void dispose() {
         super.dispose();
+        prefetcher.cancel();
+        prefetcher = null;
+        simulation.dispose();
+        simulation = null;
+        quality = null;
+        if (heartbeat != null) {
+            heartbeat.cancel();
+            heartbeat = null;
+        }
+        // drop the scenes of retained screens before the assets go away
+        screens.dispose();
+        screens = null;
+        if (transition != null) {
+            transition.dispose();
+            transition = null;
+        }
+        spriteBatch.dispose();
+        spriteBatch = null;
+        if (colorGrading != null) {
+            // the batch does not own the shader of the grading
+            colorGrading.dispose();
+            colorGrading = null;
+        }
+        if (statsOverlay != null) {
+            statsOverlay.dispose();
+            statsOverlay = null;
+        }
         assetManager.dispose();
         assetManager = null;
         assets = null;
+        residency = null;
         inputMultiplexer.removeProcessor(gameInput);
         gameInput = null;
         Gdx.input.setInputProcessor(null);
@@ -157,6 +365,13 @@ public class TamagotchiGame extends Game {
                 case Keys.ESCAPE:
                     goToPreviousScreen();
                     return true;
+                case Keys.MENU:
+                case Keys.F3:
+                    if (config.debug) {
+                        config.showStats = !config.showStats;
+                        return true;
+                    }
+                    break;
                 default:
                     break;
             }
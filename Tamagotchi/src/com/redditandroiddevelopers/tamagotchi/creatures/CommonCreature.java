@@ -1,22 +1,99 @@
 
 package com.redditandroiddevelopers.tamagotchi.creatures;
 
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
+import com.redditandroiddevelopers.tamagotchi.ui.Steppable;
+import com.redditandroiddevelopers.tamagotchi.creatures.CreatureAnimations.Clip;
 import com.redditandroiddevelopers.tamagotchi.model.Creature;
 
-public abstract class CommonCreature extends Image {
+/**
+ * The base class of all creatures. A creature plays the animation clips of
+ * its type; the clips are shared, so the playback state of a creature is only
+ * the current clip, its time and frame, and no objects are allocated while
+ * playing. Clips advance in the logic steps of the screen; each frame shows
+ * the animation frame due between the last two steps.
+ */
+public abstract class CommonCreature extends Image implements Steppable {
 
     protected Creature creatureModel;
 
-    public CommonCreature(TextureRegion creatureDefaultTextureRegion) {
-        super(creatureDefaultTextureRegion);
+    private final CreatureAnimations animations;
+    private Clip clip = Clip.IDLE;
+    /** Time in seconds the current clip has been playing */
+    private float clipTime;
+    /** The clip time of the previous step, drawing interpolates from there */
+    private float previousClipTime;
+    private int frame;
+
+    public CommonCreature(CreatureAnimations animations) {
+        super(animations.getFrame(Clip.IDLE, 0));
+        this.animations = animations;
         creatureModel = getCreatureParameters();
     }
 
     protected abstract Creature getCreatureParameters();
 
+    /**
+     * Start playing a clip from its first frame. Clips that do not loop return
+     * to {@link Clip#IDLE} when they are finished.
+     * 
+     * @param clip the clip to play
+     */
+    public void play(Clip clip) {
+        this.clip = clip;
+        clipTime = 0;
+        previousClipTime = 0;
+        frame = 0;
+        setRegion(animations.getFrame(clip, 0));
+    }
+
+    /**
+     * @return the clip currently playing
+     */
+    public Clip getClip() {
+        return clip;
+    }
+
+    /**
+     * @return true if the creature changes its looks over time, i.e. it needs
+     *         to be drawn continuously
+     */
+    public boolean isAnimating() {
+        return !clip.looping || animations.getFrameCount(clip) > 1;
+    }
+
+    @Override
+    public void step(float stepTime) {
+        final float duration = clip.frameDuration * animations.getFrameCount(clip);
+        previousClipTime = clipTime;
+        clipTime += stepTime;
+        if (clipTime >= duration) {
+            if (!clip.looping) {
+                play(Clip.IDLE);
+                return;
+            }
+            clipTime %= duration;
+            // keeps the interpolation continuous across the loop
+            previousClipTime -= duration;
+        }
+    }
+
+    @Override
+    public void interpolate(float alpha) {
+        final int frameCount = animations.getFrameCount(clip);
+        float time = previousClipTime + (clipTime - previousClipTime) * alpha;
+        if (time < 0) {
+            // still in the previous loop
+            time += clip.frameDuration * frameCount;
+        }
+        final int nextFrame = Math.min((int) (time / clip.frameDuration), frameCount - 1);
+        if (nextFrame != frame) {
+            frame = nextFrame;
+            setRegion(animations.getFrame(clip, frame));
+        }
+    }
+
     @Override
     public Actor hit(float x, float y) {
         return null;
@@ -1,14 +1,17 @@
 
 package com.redditandroiddevelopers.tamagotchi.creatures;
 
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.redditandroiddevelopers.tamagotchi.model.Creature;
 import com.redditandroiddevelopers.tamagotchi.model.Gender;
 
 public class Creature2 extends CommonCreature {
 
-    public Creature2(TextureRegion creatureDefaultTextureRegion) {
-        super(creatureDefaultTextureRegion);
+    /** The prefix of the names of the animation frames in the atlas */
+    private static final String TYPE = "Pet";
+
+    public Creature2(CreatureAnimationCache animations, TextureAtlas atlas) {
+        super(animations.get(atlas, TYPE));
     }
 
     @Override
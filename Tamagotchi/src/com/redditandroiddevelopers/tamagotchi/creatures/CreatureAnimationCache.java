@@ -0,0 +1,50 @@
+package com.redditandroiddevelopers.tamagotchi.creatures;
+
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * The {@link CreatureAnimations} built so far, by atlas and creature type, so
+ * the same type can be drawn from several atlases at once, e.g. the main game
+ * and the creature creation atlas. The clips of an atlas must be dropped by
+ * {@link #remove(TextureAtlas)} when the atlas is unloaded, since they refer
+ * to its regions.
+ */
+public class CreatureAnimationCache {
+
+    private final IdentityHashMap<TextureAtlas, HashMap<String, CreatureAnimations>> atlases =
+            new IdentityHashMap<TextureAtlas, HashMap<String, CreatureAnimations>>();
+
+    /**
+     * Get the clips of a creature type, building them on first use.
+     *
+     * @param atlas the atlas containing the frames
+     * @param type the prefix of the region names of the creature type
+     * @return the clips of the type
+     */
+    public CreatureAnimations get(TextureAtlas atlas, String type) {
+        HashMap<String, CreatureAnimations> types = atlases.get(atlas);
+        if (types == null) {
+            types = new HashMap<String, CreatureAnimations>();
+            atlases.put(atlas, types);
+        }
+        CreatureAnimations animations = types.get(type);
+        if (animations == null) {
+            animations = new CreatureAnimations(atlas, type);
+            types.put(type, animations);
+        }
+        return animations;
+    }
+
+    /**
+     * Drop the clips built from an atlas.
+     *
+     * @param atlas the atlas being unloaded
+     */
+    public void remove(TextureAtlas atlas) {
+        atlases.remove(atlas);
+    }
+
+}
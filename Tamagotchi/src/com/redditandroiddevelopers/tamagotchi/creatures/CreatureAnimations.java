@@ -0,0 +1,125 @@
+package com.redditandroiddevelopers.tamagotchi.creatures;
+
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The animation clips of a creature type, built from the regions of a
+ * texture atlas and shared by all creatures of that type through a
+ * {@link CreatureAnimationCache}. The frames of a
+ * clip are the regions named after the type and the clip, in the order of
+ * their index, e.g. {@code PetEat_0.png}, {@code PetEat_1.png} and so on for
+ * the {@link Clip#EAT} clip of the type {@code Pet}. Clips without frames in
+ * the atlas show the {@code <type>Default} region instead.
+ */
+public class CreatureAnimations {
+
+    /**
+     * The things a creature can be seen doing.
+     */
+    public enum Clip {
+        IDLE("Idle", 0.25f, true),
+        EAT("Eat", 0.15f, false),
+        SLEEP("Sleep", 0.5f, true),
+        SICK("Sick", 0.3f, true);
+
+        /** Appended to the creature type to get the region name */
+        public final String suffix;
+        /** Time in seconds each frame is shown */
+        public final float frameDuration;
+        /** Whether the clip repeats; otherwise the creature returns to idle */
+        public final boolean looping;
+
+        private Clip(String suffix, float frameDuration, boolean looping) {
+            this.suffix = suffix;
+            this.frameDuration = frameDuration;
+            this.looping = looping;
+        }
+    }
+
+    private static final String DEFAULT_SUFFIX = "Default";
+
+    /** The frames of every clip, indexed by the ordinal of the clip */
+    private final TextureRegion[][] frames;
+
+    CreatureAnimations(TextureAtlas atlas, String type) {
+        final TextureRegion defaultRegion = atlas.findRegion(type + DEFAULT_SUFFIX);
+        if (defaultRegion == null) {
+            throw new GdxRuntimeException("No region named " + type + DEFAULT_SUFFIX);
+        }
+        final Clip[] clips = Clip.values();
+        frames = new TextureRegion[clips.length][];
+        for (Clip clip : clips) {
+            final List<AtlasRegion> regions = findFrames(atlas, type + clip.suffix);
+            if (regions.isEmpty()) {
+                frames[clip.ordinal()] = new TextureRegion[] {
+                        defaultRegion
+                };
+            } else {
+                frames[clip.ordinal()] = regions.toArray(new TextureRegion[regions.size()]);
+            }
+        }
+    }
+
+    /**
+     * Find the creature types that have frames in an atlas, i.e. the
+     * prefixes of its {@code <type>Default} regions.
+     *
+     * @param atlas the atlas to search
+     * @return the types, in the order of the atlas
+     */
+    public static List<String> findTypes(TextureAtlas atlas) {
+        final ArrayList<String> types = new ArrayList<String>();
+        for (AtlasRegion region : atlas.getRegions()) {
+            final String name = region.name;
+            if (name.length() > DEFAULT_SUFFIX.length() && name.endsWith(DEFAULT_SUFFIX)) {
+                final String type = name.substring(0, name.length() - DEFAULT_SUFFIX.length());
+                if (!types.contains(type)) {
+                    types.add(type);
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * @return the regions with the given name, ordered by their index
+     */
+    private static List<AtlasRegion> findFrames(TextureAtlas atlas, String name) {
+        final ArrayList<AtlasRegion> frames = new ArrayList<AtlasRegion>();
+        for (AtlasRegion region : atlas.getRegions()) {
+            if (!region.name.equals(name)) {
+                continue;
+            }
+            int i = frames.size();
+            while (i > 0 && frames.get(i - 1).index > region.index) {
+                i--;
+            }
+            frames.add(i, region);
+        }
+        return frames;
+    }
+
+    /**
+     * @return the number of frames of a clip, at least 1
+     */
+    public int getFrameCount(Clip clip) {
+        return frames[clip.ordinal()].length;
+    }
+
+    /**
+     * @param clip the clip
+     * @param frame the frame number, from 0 to {@link #getFrameCount(Clip)}
+     *            (exclusive)
+     * @return the region to show
+     */
+    public TextureRegion getFrame(Clip clip, int frame) {
+        return frames[clip.ordinal()][frame];
+    }
+
+}
@@ -10,7 +10,15 @@ import com.badlogic.gdx.graphics.GL10;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets.Asset;
+import com.redditandroiddevelopers.tamagotchi.TamagotchiConfiguration;
 import com.redditandroiddevelopers.tamagotchi.TamagotchiGame;
+import com.redditandroiddevelopers.tamagotchi.ui.Steppable;
+import com.redditandroiddevelopers.tamagotchi.utils.FrameStats;
+import com.redditandroiddevelopers.tamagotchi.utils.StartupTracer;
+
+import java.util.ArrayList;
 
 /**
  * A common, base class for all of our app's screen implementations.
@@ -19,11 +27,38 @@ public abstract class CommonScreen implements Screen, AssetErrorListener {
 
     private static final String TAG = "Tamagotchi:CommonScreen";
 
+    protected static final Asset<?>[] NO_ASSETS = new Asset<?>[0];
+
     protected TamagotchiGame game;
     protected SpriteBatch batch;
     protected Stage stage;
     protected OrthographicCamera camera;
 
+    /**
+     * Whether {@link #loadResources()} has been called without a matching
+     * {@link #unloadResources()} yet.
+     */
+    private boolean resourcesLoaded;
+
+    /**
+     * Whether the assets requested in {@link #loadResources()} are resident
+     * and {@link #layout()} has been run.
+     */
+    private boolean ready;
+
+    /** Time in seconds not yet consumed by fixed logic steps */
+    private float stepAccumulator;
+    /** How far the current frame is between the last two logic steps */
+    private float stepAlpha;
+    /** Advanced by the default {@link #step(float)} */
+    private final ArrayList<Steppable> steppables = new ArrayList<Steppable>();
+
+    /**
+     * Render statistics of the latest frames, recorded in debug builds and
+     * for the quality governor
+     */
+    private final FrameStats stats = new FrameStats();
+
     /**
      * A CommonScreen must have a reference to a {@link TamagotchiGame}. You
      * must override this constructor (make sure to call this super
@@ -38,45 +73,196 @@ public abstract class CommonScreen implements Screen, AssetErrorListener {
     /**
      * Must be overridden by a concrete screen that subclasses this class.
      * Implement the logic to load all of the resources needed throughout the
-     * lifetime of this screen.
+     * lifetime of this screen. Assets should be acquired through
+     * {@link TamagotchiGame#residency} with this screen as their owner.
      */
     public abstract void loadResources();
 
     /**
      * Must be overridden by a concrete screen that subclasses this class.
      * Implement the logic to unload all resources loaded by
-     * {@link CommonScreen#loadResources()} implementation.
+     * {@link CommonScreen#loadResources()} implementation. Released assets
+     * may stay resident, so coming back to this screen is cheap.
      */
     public abstract void unloadResources();
 
+    /**
+     * Declare the assets acquired by {@link CommonScreen#loadResources()}, so
+     * they can be prefetched before this screen is shown. By default, no
+     * assets are declared.
+     * 
+     * @return the assets used by this screen
+     */
+    public Asset<?>[] getAssets() {
+        return NO_ASSETS;
+    }
+
+    /**
+     * Called once all of the resources requested in
+     * {@link CommonScreen#loadResources()} have finished loading. Override
+     * this method to build the actor graph of this screen; it is safe to
+     * retrieve assets from here on. By default, nothing is done.
+     */
+    protected void layout() {
+    }
+
+    /**
+     * @return true if this screen's resources are loaded and it has been laid
+     *         out, i.e. it is being updated and drawn
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Whether this screen currently needs to be rendered every frame, e.g.
+     * because something on it animates. Otherwise, frames are only rendered on
+     * input, on {@link #requestFrame()} and at a low heartbeat rate, which
+     * saves a lot of battery while the screen is idle. By default, frames are
+     * rendered continuously until the screen is ready. Screens that animate on
+     * their own should override this method and also return true while they
+     * do.
+     * 
+     * @return true if every frame should be rendered
+     */
+    public boolean needsContinuousRendering() {
+        return !ready;
+    }
+
+    /**
+     * Request a single frame, e.g. after the simulation changed a value this
+     * screen shows. May be called from any thread.
+     */
+    public void requestFrame() {
+        Gdx.graphics.requestRendering();
+    }
+
+    /**
+     * Whether this screen keeps its {@link Stage}, its actor graph and the
+     * resources it references when it is hidden. A retained screen is only
+     * laid out once, which makes showing it again almost free. By default,
+     * screens are not retained; override this method to change that.
+     * 
+     * @return true if the scene should be kept across
+     *         {@link CommonScreen#hide()} and {@link CommonScreen#show()}
+     */
+    protected boolean isRetained() {
+        return false;
+    }
+
+    /**
+     * @return true if this screen holds an actor graph or resources, which
+     *         {@link #releaseScene()} would drop
+     */
+    public boolean hasScene() {
+        return stage != null || resourcesLoaded;
+    }
+
+    /**
+     * Drop the actor graph of this screen and unload its resources. This is
+     * done automatically when a non-retained screen is hidden; retained
+     * screens keep their scene until this method is called explicitly. Must
+     * not be called while this is the current screen.
+     */
+    public void releaseScene() {
+        if (resourcesLoaded) {
+            unloadResources();
+            resourcesLoaded = false;
+        }
+        if (stage != null) {
+            // the stage does not own the shared sprite batch, so this is cheap
+            stage.dispose();
+            stage = null;
+            camera = null;
+        }
+        steppables.clear();
+        ready = false;
+    }
+
+    /**
+     * Have a {@link Steppable} advanced by the logic steps of this screen and
+     * interpolated before each frame is drawn. Usually called from
+     * {@link #layout()}; the steppables are forgotten with the scene.
+     * 
+     * @param steppable an actor of this screen that moves on its own
+     */
+    protected void addSteppable(Steppable steppable) {
+        steppables.add(steppable);
+    }
+
+    /**
+     * Called at a fixed rate of {@link TamagotchiConfiguration#stepsPerSecond}
+     * to advance the game logic, independent of the frame rate. After a slow
+     * frame, several steps are run to catch up, up to
+     * {@link TamagotchiConfiguration#maxStepsPerFrame} while frames are
+     * rendered continuously; a frame rendered on demand catches up with all
+     * the time since the previous one. Anything drawn from the state advanced
+     * here should interpolate between the previous and the current step using
+     * {@link #getStepAlpha()}, so motion stays smooth at any frame rate. By
+     * default, the steppables added with {@link #addSteppable(Steppable)} are
+     * advanced; don't forget to call {@code super.step()} when overriding.
+     * 
+     * @param stepTime the duration of a step in seconds, always the same
+     */
+    protected void step(float stepTime) {
+        for (int i = 0, n = steppables.size(); i < n; i++) {
+            steppables.get(i).step(stepTime);
+        }
+    }
+
+    /**
+     * @return how far the current frame is between the previous logic step
+     *         (0) and the latest one (1)
+     */
+    protected float getStepAlpha() {
+        return stepAlpha;
+    }
+
     /**
      * Called when the screen should update itself, e.g. continue a simulation
-     * etc. By default, the {@link Camera} object of the associated
-     * {@link Stage} of this {@code Screen} is updated. Override this method for
+     * etc. By default, the actors of the associated {@link Stage} of this
+     * {@code Screen} act and its {@link Camera} object is updated. Override this method for
      * a game state update (make it brief!) but don't forget to call
      * {@code super.update()}. If you are manipulating the {@link Camera} in any
-     * way, do so <em>prior</em> to calling {@code super.update()}.
+     * way, do so <em>prior</em> to calling {@code super.update()}. This is the
+     * place to switch screens; the frame is not drawn then.
      */
     public void update(float delta) {
+        stage.act(delta);
         camera.update();
         if (!Gdx.graphics.isGL20Available()) {
             camera.apply(Gdx.gl10);
-        } else {
-            assert false; // not supporting GL20 yet
-            throw new UnsupportedOperationException("OpenGL ES 2.0");
         }
+        // with GL20, there is no matrix stack: the stage hands the camera
+        // matrices to the shader of the batch when it draws
     }
 
     /**
      * Called when a screen should render itself. By default, the associated
      * {@link Stage} of this {@code Screen} is drawn. If necessary, override
      * this method for a more involved {@code draw()} implementation (make it
-     * brief!) but don't forget to call {@code super.draw()} first.
+     * brief!) but don't forget to call {@code super.draw()} first. Only draw
+     * here and never change the state of the game, since this is also used to
+     * take snapshots, see {@link #drawSnapshot()}.
      */
     public void draw() {
         stage.draw();
     }
 
+    /**
+     * Draw the current state of this screen once more without updating it,
+     * e.g. into the frame buffer of a screen transition. Does nothing unless
+     * the screen is ready.
+     */
+    public void drawSnapshot() {
+        if (!ready) {
+            return;
+        }
+        drawBackground();
+        Gdx.gl.glClear(GL10.GL_COLOR_BUFFER_BIT);
+        draw();
+    }
+
     @Override
     public final void dispose() {
         // this isn't really used
@@ -85,23 +271,128 @@ public abstract class CommonScreen implements Screen, AssetErrorListener {
 
     @Override
     public void hide() {
-        unloadResources();
         game.assetManager.setErrorListener(null);
         game.inputMultiplexer.removeProcessor(stage);
-        stage.dispose();
+        stage.unfocusAll();
+        writeStats();
+        if (!isRetained()) {
+            releaseScene();
+        }
     }
 
     @Override
     public void pause() {
         stage.unfocusAll();
+        // the application may not come back, so keep what was recorded
+        writeStats();
     }
 
     @Override
     public final void render(float delta) {
         Gdx.gl.glClear(GL10.GL_COLOR_BUFFER_BIT);
         drawBackground();
+        // the first frame after the layout is traced during startup
+        boolean traceDraw = false;
+        if (!ready) {
+            // keep streaming in our resources without blocking the GL thread;
+            // the screen only becomes active once all of them are resident
+            if (!game.residency.update(game.config.assetLoadBudget)) {
+                return;
+            }
+            ready = true;
+            final StartupTracer tracer = game.config.startupTracer;
+            final boolean tracing = tracer.isTracing();
+            if (tracing) {
+                tracer.end(getTraceName("streaming"));
+                tracer.begin(getTraceName("layout"));
+            }
+            layout();
+            if (tracing) {
+                tracer.end(getTraceName("layout"));
+                traceDraw = true;
+            }
+            // the time spent loading is not to be caught up
+            stepAccumulator = 0;
+        }
+        // the quality governor judges the device by these statistics
+        final boolean recordStats = game.config.debug || game.config.adaptiveQuality;
+        if (recordStats) {
+            stats.beginFrame(game.spriteBatch);
+        }
+        runSteps(delta);
         update(delta);
+        if (game.getScreen() != this) {
+            // the update switched screens; a hidden screen may have dropped
+            // its scene already, and the next one is drawn from now on
+            return;
+        }
+        if (recordStats) {
+            stats.endUpdate();
+        }
+        if (traceDraw) {
+            game.config.startupTracer.begin(getTraceName("firstDraw"));
+        }
         draw();
+        if (traceDraw) {
+            game.config.startupTracer.end(getTraceName("firstDraw"));
+        }
+        if (recordStats) {
+            stats.endFrame(game.spriteBatch);
+            if (game.config.showStats) {
+                game.statsOverlay.draw(batch, stats, game.quality.getTier(), delta);
+            }
+        }
+    }
+
+    private void runSteps(float delta) {
+        final float stepTime = 1f / game.config.stepsPerSecond;
+        stepAccumulator += delta;
+        // after an idle time without frames, the time is owed rather than lost
+        final int maxSteps = Gdx.graphics.isContinuousRendering() ? game.config.maxStepsPerFrame
+                : Integer.MAX_VALUE;
+        int steps = 0;
+        while (stepAccumulator >= stepTime) {
+            if (steps == maxSteps) {
+                // drop the time we cannot catch up with; the logic slows down
+                // instead of taking ever longer frames
+                stepAccumulator %= stepTime;
+                break;
+            }
+            step(stepTime);
+            stepAccumulator -= stepTime;
+            steps++;
+        }
+        stepAlpha = stepAccumulator / stepTime;
+        for (int i = 0, n = steppables.size(); i < n; i++) {
+            steppables.get(i).interpolate(stepAlpha);
+        }
+    }
+
+    /**
+     * @return the render statistics of the latest frames of this screen; only
+     *         recorded if {@link TamagotchiConfiguration#debug} or
+     *         {@link TamagotchiConfiguration#adaptiveQuality} is set
+     */
+    public FrameStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Write the recorded render statistics to a CSV file named after this
+     * screen, so a session can be examined afterwards.
+     */
+    private void writeStats() {
+        if (!game.config.debug || stats.getCount() == 0) {
+            return;
+        }
+        final String fileName = "stats/" + getClass().getSimpleName() + ".csv";
+        try {
+            stats.writeCsv(Gdx.files.local(fileName));
+            Gdx.app.debug(TAG, "Wrote render statistics to " + fileName);
+        } catch (GdxRuntimeException e) {
+            Gdx.app.error(TAG, "Cannot write render statistics to " + fileName, e);
+        }
+        stats.clear();
     }
 
     @Override
@@ -113,24 +404,57 @@ public abstract class CommonScreen implements Screen, AssetErrorListener {
     @Override
     public void resume() {
         stage.unfocusAll();
+        // the logic does not run while the application is paused
+        stepAccumulator = 0;
     }
 
     @Override
     public void show() {
-        batch = new SpriteBatch();
-        stage = createStage(batch);
-        camera = (OrthographicCamera) stage.getCamera();
+        final StartupTracer tracer = game.config.startupTracer;
+        final boolean tracing = tracer.isTracing();
+        if (tracing) {
+            tracer.begin(getTraceName("show"));
+        }
+        batch = game.spriteBatch;
+        if (stage == null) {
+            stage = createStage(batch);
+            camera = (OrthographicCamera) stage.getCamera();
+        }
         game.inputMultiplexer.addProcessor(stage);
         game.assetManager.setErrorListener(this);
-        loadResources();
-        // XXX: TEMPORARY!
-        // wait for resources to finish loading
-        game.assetManager.finishLoading();
+        // the logic does not run while the screen is hidden
+        stepAccumulator = 0;
+        if (!resourcesLoaded) {
+            // a retained scene still has everything it needs
+            ready = false;
+            if (tracing) {
+                tracer.begin(getTraceName("loadResources"));
+            }
+            loadResources();
+            resourcesLoaded = true;
+            if (tracing) {
+                tracer.end(getTraceName("loadResources"));
+                // ends once the assets are resident
+                tracer.begin(getTraceName("streaming"));
+            }
+        }
+        if (tracing) {
+            tracer.end(getTraceName("show"));
+        }
+    }
+
+    /**
+     * @param phase the phase of this screen
+     * @return the name under which the phase is traced during startup
+     */
+    private String getTraceName(String phase) {
+        return getClass().getSimpleName() + "." + phase;
     }
 
     /**
      * Create a {@link Stage} for this screen, preferably using the supplied
-     * {@link SpriteBatch} object.
+     * {@link SpriteBatch} object. The batch is shared by all screens and owned
+     * by the {@link TamagotchiGame}, so the stage must not dispose it.
      * 
      * @param batch the {@link SpriteBatch} object to use
      * @return a {@link Stage} object
@@ -6,53 +6,58 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.input.GestureDetector;
-import com.badlogic.gdx.input.GestureDetector.GestureListener;
-import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.scenes.scene2d.Stage;
-import com.badlogic.gdx.scenes.scene2d.ui.Align;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
-import com.badlogic.gdx.utils.Scaling;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets.Asset;
+import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets.FontAsset;
 import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets.TextureAtlasAsset;
 import com.redditandroiddevelopers.tamagotchi.TamagotchiGame;
-import com.redditandroiddevelopers.tamagotchi.utils.FontHelper;
+import com.redditandroiddevelopers.tamagotchi.creatures.CreatureAnimations;
+import com.redditandroiddevelopers.tamagotchi.creatures.CreatureAnimations.Clip;
+import com.redditandroiddevelopers.tamagotchi.ui.Carousel;
+import com.redditandroiddevelopers.tamagotchi.ui.CarouselAdapter;
 
-import java.util.ArrayList;
+import java.util.List;
 
 public class CreatureCreationScreen extends CommonScreen {
 
     private static final String TAG = "Tamagotchi:CreatureCreationScreen";
 
+    private static final Asset<?>[] ASSETS = new Asset<?>[] {
+            TextureAtlasAsset.CREATE_CREATURE,
+            FontAsset.ROBOTO_MEDIUM,
+            FontAsset.ROBOTO_LARGE
+    };
+
     private static final String GRP_CREATURES = "creatures";
     private static final String GRP_OVERLAY = "overlay";
     private static final String GRP_TEXT = "text";
+    private static final String CAROUSEL = "carousel";
 
-    float leftMark = 250;
-    float rightMark = Gdx.graphics.getWidth() - 250;
-
-    ArrayList<Image> creatureList = new ArrayList<Image>();
-
-    GestureDetector gestureDetector = new GestureDetector(new SwipeHandler());
+    /** Distance from the screen edges at which the creatures start to rise */
+    private static final float MARK_MARGIN = 250;
+    /** How much the creatures rise per unit beyond the marks */
+    private static final float RISE_SLOPE = 0.8f;
 
     float scaleFactor = 0.75f;
 
+    private Carousel carousel;
+
     public CreatureCreationScreen(TamagotchiGame game) {
         super(game);
     }
 
     @Override
-    public void show() {
-        super.show();
+    protected void layout() {
         initLayout();
-        initInput();
     }
 
-    private void initInput() {
-        game.inputMultiplexer.removeProcessor(stage);
-        game.inputMultiplexer.addProcessor(gestureDetector);
-        game.inputMultiplexer.addProcessor(stage);
+    @Override
+    public boolean needsContinuousRendering() {
+        return super.needsContinuousRendering() || (carousel != null && carousel.isMoving());
     }
 
     private void initLayout() {
@@ -71,32 +76,38 @@ public class CreatureCreationScreen extends CommonScreen {
         final TextureAtlas textureAtlas = game.assets.getAsset(TextureAtlasAsset.CREATE_CREATURE);
 
         // get texture regions from loaded texture atlas
-        final TextureRegion creatureTextureRegion = textureAtlas.findRegion("PetDefault");
         final TextureRegion overlayGrayTextureRegion = textureAtlas.findRegion("OverlayGray");
 
-        // create creatures
-
-        Image creature = new Image(creatureTextureRegion, Scaling.stretch, Align.CENTER,
-                "creature1");
-        creature.x = camera.viewportWidth / 2 - creature.width / 2;
-        creature.y = camera.viewportHeight / 2 - creature.height / 2;
+        // create creatures, one per type in the atlas; only the visible ones
+        // get an actor
 
-        Image creature2 = new Image(creatureTextureRegion, Scaling.stretch, Align.CENTER,
-                "creature2");
-
-        Image creature3 = new Image(creatureTextureRegion, Scaling.stretch, Align.CENTER,
-                "creature3");
-
-        creatureList.add(creature);
-        creatureList.add(creature2);
-        creatureList.add(creature3);
-
-        // adjust left and right mark
-
-        leftMark = leftMark - creature.width / 2;
-        rightMark = rightMark - creature.width / 2;
+        final List<String> types = CreatureAnimations.findTypes(textureAtlas);
+        if (types.isEmpty()) {
+            throw new GdxRuntimeException("No creature types in " + TextureAtlasAsset.CREATE_CREATURE);
+        }
+        final TextureRegion[] creatureTextureRegions = new TextureRegion[types.size()];
+        for (int i = 0; i < creatureTextureRegions.length; i++) {
+            creatureTextureRegions[i] = game.residency.getAnimations()
+                    .get(textureAtlas, types.get(i)).getFrame(Clip.IDLE, 0);
+        }
+        final CarouselAdapter creatures = new CarouselAdapter() {
+            @Override
+            public int getCount() {
+                return creatureTextureRegions.length;
+            }
 
-        initializeCreaturePositions();
+            @Override
+            public TextureRegion getRegion(int index) {
+                return creatureTextureRegions[index];
+            }
+        };
+        // the next creature peeks in from the right edge
+        final float spacing = camera.viewportWidth / 2
+                - creatureTextureRegions[0].getRegionWidth() / 4f;
+        carousel = new Carousel(CAROUSEL, creatures, camera.viewportWidth,
+                camera.viewportHeight, spacing, scaleFactor);
+        carousel.setCurve(MARK_MARGIN, camera.viewportWidth - MARK_MARGIN, RISE_SLOPE);
+        addSteppable(carousel);
 
         // create overlay
 
@@ -105,10 +116,10 @@ public class CreatureCreationScreen extends CommonScreen {
         // add text ("select creature")
 
         final Label.LabelStyle labelStyle80 = new Label.LabelStyle(
-                FontHelper.createBitmapFont("fonts/Roboto-Regular.ttf", 80f, stage),
+                game.assets.getAsset(FontAsset.ROBOTO_LARGE),
                 Color.WHITE);
         final Label.LabelStyle labelStyle20 = new Label.LabelStyle(
-                FontHelper.createBitmapFont("fonts/Roboto-Regular.ttf", 40f, stage),
+                game.assets.getAsset(FontAsset.ROBOTO_MEDIUM),
                 Color.WHITE);
         Label labelFirstLine = new Label("Choose a pet", labelStyle80);
         labelFirstLine.x = Gdx.graphics.getWidth() / 2 - labelFirstLine.width / 2;
@@ -122,9 +133,7 @@ public class CreatureCreationScreen extends CommonScreen {
 
         // add creatures to the 'creature' group
 
-        creatureGroup.addActor(creature);
-        creatureGroup.addActor(creature2);
-        creatureGroup.addActor(creature3);
+        creatureGroup.addActor(carousel);
 
         // add overlay to the 'overlay' group
         overlayGroup.addActor(overlay);
@@ -139,54 +148,22 @@ public class CreatureCreationScreen extends CommonScreen {
         stage.addActor(textGroup);
     }
 
-    private float getYforX(float x) {
-        // x = x + creatureList.get(0).getImageWidth() / 2;
-        float t = 0.8f;
-        if (x <= leftMark) {
-            int leftOfLeftMark = (int) (leftMark - x);
-            return getYforX(leftMark + 1) + t * leftOfLeftMark;
-        }
-        else if (x > leftMark && x < rightMark) {
-            return Gdx.graphics.getHeight() / 2 - creatureList.get(0).height / 2;
-        }
-        else if (x >= rightMark) {
-            int rightOfRightMark = (int) (x - rightMark);
-            return getYforX(leftMark + 1) + t * rightOfRightMark;
-        }
-        return 0;
-    }
-
-    private void initializeCreaturePositions() {
-        for (Image c : creatureList) {
-            int i = creatureList.indexOf(c);
-            if (i == 0) {
-                c.x = camera.viewportWidth / 2 - c.width / 2;
-                c.y = camera.viewportHeight / 2 - c.height / 2;
-            }
-            else if (i == 1) {
-                c.x = camera.viewportWidth - (3f / 4) * c.width * c.scaleX;
-                c.y = getYforX(c.x);
-                c.scaleX = c.scaleY = scaleFactor;
-            }
-            else {
-                c.x = creatureList.get(i - 1).x + (creatureList.get(1).x - creatureList.get(0).x);
-                c.y = getYforX(c.x);
-                ;
-                c.scaleX = c.scaleY = scaleFactor;
-            }
-        }
+    @Override
+    public Asset<?>[] getAssets() {
+        return ASSETS;
     }
 
     @Override
     public void loadResources() {
-        game.assets.loadAsset(TextureAtlasAsset.CREATE_CREATURE);
+        for (Asset<?> asset : ASSETS) {
+            game.residency.acquire(this, asset);
+        }
     }
 
     @Override
     public void unloadResources() {
-        creatureList.clear();
-        game.assets.unloadAsset(TextureAtlasAsset.CREATE_CREATURE);
-        game.inputMultiplexer.removeProcessor(gestureDetector);
+        carousel = null;
+        game.residency.releaseAll(this);
     }
 
     @Override
@@ -194,54 +171,8 @@ public class CreatureCreationScreen extends CommonScreen {
         return new Stage(game.config.stageWidth, game.config.stageHeight, false, batch);
     }
 
-    class SwipeHandler implements GestureListener {
-
-        @Override
-        public boolean touchDown(int x, int y, int pointer) {
-            return false;
-        }
-
-        @Override
-        public boolean tap(int x, int y, int count) {
-            return false;
-        }
-
-        @Override
-        public boolean longPress(int x, int y) {
-            return false;
-        }
-
-        @Override
-        public boolean fling(float velocityX, float velocityY) {
-            return false;
-        }
-
-        @Override
-        public boolean pan(int x, int y, int deltaX, int deltaY) {
-            // Gdx.app.log(TAG, "x: " + x + " y: " + y + " deltaX: " + deltaX +
-            // " deltaY: " + deltaY);
-            if (deltaX == 0) {
-                return false; // not sure if this should be considered 'handled'
-            }
-            for (Image c : creatureList) {
-                c.x += deltaX;
-                c.y = getYforX(c.x);
-                if (c.name.compareTo("creature2") == 0) {
-                    Gdx.app.log(TAG, "Creature " + c.name + " placed at X: " + c.x + " Y: " + c.y);
-                }
-            }
-            return true;
-        }
-
-        @Override
-        public boolean zoom(float originalDistance, float currentDistance) {
-            return false;
-        }
-
-        @Override
-        public boolean pinch(Vector2 initialFirstPointer, Vector2 initialSecondPointer,
-                Vector2 firstPointer, Vector2 secondPointer) {
-            return false;
-        }
+    @Override
+    protected boolean isRetained() {
+        return true;
     }
 }
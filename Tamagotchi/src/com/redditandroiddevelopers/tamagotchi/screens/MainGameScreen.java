@@ -7,19 +7,30 @@ import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.graphics.g2d.stbtt.TrueTypeFontFactory;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Button;
 import com.badlogic.gdx.scenes.scene2d.ui.ClickListener;
-import com.badlogic.gdx.scenes.scene2d.ui.Image;
-import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets.Asset;
+import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets.FontAsset;
 import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets.TextureAtlasAsset;
+import com.redditandroiddevelopers.tamagotchi.QualityTier;
 import com.redditandroiddevelopers.tamagotchi.TamagotchiGame;
 import com.redditandroiddevelopers.tamagotchi.creatures.Creature1;
+import com.redditandroiddevelopers.tamagotchi.creatures.CreatureAnimations.Clip;
+import com.redditandroiddevelopers.tamagotchi.model.CreatureState;
+import com.redditandroiddevelopers.tamagotchi.simulation.CareAction;
+import com.redditandroiddevelopers.tamagotchi.simulation.NeedsSimulation;
+import com.redditandroiddevelopers.tamagotchi.simulation.SimulatedCreature;
 import com.redditandroiddevelopers.tamagotchi.ui.DragListener;
 import com.redditandroiddevelopers.tamagotchi.ui.DraggableImage;
+import com.redditandroiddevelopers.tamagotchi.ui.NumberLabel;
+import com.redditandroiddevelopers.tamagotchi.ui.ParticleBurst;
+import com.redditandroiddevelopers.tamagotchi.ui.ParticleLayer;
+import com.redditandroiddevelopers.tamagotchi.ui.StaticLayer;
+
+import java.util.TimeZone;
 
 /**
  * This screen instance will represent the main game screen where your creature
@@ -30,6 +41,11 @@ public class MainGameScreen extends CommonScreen implements ClickListener, DragL
 
     private static final String TAG = "Tamagotchi:MainGameScreen";
 
+    private static final Asset<?>[] ASSETS = new Asset<?>[] {
+            TextureAtlasAsset.MAIN_GAME,
+            FontAsset.ROBOTO_SMALL
+    };
+
     private static final String GRP_BACKGROUND = "background";
     private static final String GRP_FOREGROUND = "foreground";
     private static final String GRP_OVERLAY = "overlay";
@@ -40,16 +56,79 @@ public class MainGameScreen extends CommonScreen implements ClickListener, DragL
     private static final String GRP_TOP_BUTTONS = "top_buttons";
     private static final String GRP_STATUS_PANEL = "status_panel";
 
+    private static final String LAYER_DISTANT = "layer_distant";
+    private static final String LAYER_NEAR = "layer_near";
+    private static final String LBL_FPS = "fps";
+    private static final String[] LBL_NEEDS = new String[] {
+            "health", "hunger", "happy", "bowel"
+    };
+    private static final String[] NEED_PREFIXES = new String[] {
+            "Health: ", "Hunger: ", "Happy: ", "Bowel: "
+    };
+    private static final String PARTICLES = "particles";
+
+    /** The most particles alive at once */
+    private static final int PARTICLE_CAPACITY = 4096;
+
+    /** How much the distant background follows the camera, for parallax */
+    private static final float DISTANT_PARALLAX = 0.5f;
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+
     private static final int FOOD = 0;
     private static final int TOILET = 1;
     private static final int SHOWER = 2;
     private static final int LIGHT = 3;
     private static final int NUM_BUTTONS = 4;
 
+    private static final int HEALTH = 0;
+    private static final int HUNGER = 1;
+    private static final int HAPPY = 2;
+    private static final int BOWEL = 3;
+
     private Button[] buttons;
     private DraggableImage btnDragDown;
-    private Label fpsLabel;
+    private NumberLabel fpsLabel;
+    /** Show the needs of the pet, indexed like {@link #LBL_NEEDS} */
+    private NumberLabel[] needLabels;
     private Creature1 creature;
+    /** The needs of the creature, advanced by the simulation */
+    private volatile SimulatedCreature pet;
+    /** The needs of the pet as shown, read from the simulation every frame */
+    private final CreatureState needs = new CreatureState();
+    /** The needs of the pet as of the latest tick, only used by the listener */
+    private CreatureState tickedNeeds = new CreatureState();
+    private CreatureState previousNeeds = new CreatureState();
+    /** Requests a frame when the needs of the pet change while idle */
+    private final NeedsSimulation.Listener needsListener = new NeedsSimulation.Listener() {
+        @Override
+        public void ticked() {
+            final SimulatedCreature creature = pet;
+            if (creature == null) {
+                return;
+            }
+            final CreatureState needs = previousNeeds;
+            previousNeeds = tickedNeeds;
+            tickedNeeds = needs;
+            game.simulation.read(creature, needs);
+            if (!hasSameNeeds(needs, previousNeeds)) {
+                requestFrame();
+            }
+        }
+    };
+    private ParticleLayer particles;
+    private ParticleBurst crumbs;
+    private ParticleBurst bubbles;
+    private ParticleBurst sparkles;
+    private StaticLayer distantLayer;
+    private StaticLayer nearLayer;
+    private float layerZoom;
+    private TextureRegion planetsRegion;
+    private TextureRegion hillsMidgroundRegion;
+    private TextureRegion hillsForegroundRegion;
+    private QualityTier layerTier;
+    /** Cached, since TimeZone.getDefault() returns a new copy every time */
+    private final TimeZone timeZone = TimeZone.getDefault();
 
     /**
      * Creates a new instance of the MainGameScreen.
@@ -66,15 +145,15 @@ public class MainGameScreen extends CommonScreen implements ClickListener, DragL
     }
 
     @Override
-    public final void show() {
-        super.show();
-        layout();
+    protected final boolean isRetained() {
+        return true;
     }
 
     /**
      * Creates the basic layout of the screen.
      */
-    private void layout() {
+    @Override
+    protected void layout() {
 
         /*
          * TODO: Add basic status mockup that can be pulled down
@@ -110,22 +189,38 @@ public class MainGameScreen extends CommonScreen implements ClickListener, DragL
         final TextureRegion hillsForegroundTextureRegion = textureAtlas
                 .findRegion("HillsForeground");
         final TextureRegion groundTextureRegion = textureAtlas.findRegion("StaticGround");
-        final TextureRegion creatureDefaultTextureRegion = textureAtlas.findRegion("PetDefault");
         final TextureRegion swipeArrowTextureRegion = textureAtlas.findRegion("LeftSwipeArrow");
 
         /* prepare layout */
 
-        // add background
-        Image bgPlanetsBackground = new Image(planetsBackgroundTextureRegion);
-        Image bgHillsMidground = new Image(hillsMidgroundTextureRegion);
-        Image bgHillsForeground = new Image(hillsForegroundTextureRegion);
+        // add background; it never changes, so it is drawn from a cache
+        distantLayer = new StaticLayer(LAYER_DISTANT, false);
+        planetsRegion = planetsBackgroundTextureRegion;
+        hillsMidgroundRegion = hillsMidgroundTextureRegion;
+        hillsForegroundRegion = hillsForegroundTextureRegion;
+        fillDistantLayer(game.quality.getTier());
 
-        Image bgGround = new Image(groundTextureRegion);
+        nearLayer = new StaticLayer(LAYER_NEAR, true);
+        nearLayer.add(groundTextureRegion, 0, 0);
+        layerZoom = camera.zoom;
 
         // add creature
-        creature = new Creature1(creatureDefaultTextureRegion);
+        creature = new Creature1(game.residency.getAnimations(), textureAtlas);
         creature.x = 400;
         creature.y = 50;
+        addSteppable(creature);
+        // until creatures are created by the player and persisted, a default
+        // one is simulated
+        if (game.simulation.getCreatureCount() == 0) {
+            game.simulation.add(SimulatedCreature.createDefault());
+        }
+        pet = game.simulation.getCreature(0);
+
+        // add the effects of the care actions
+        particles = new ParticleLayer(PARTICLES, PARTICLE_CAPACITY);
+        particles.touchable = false;
+        addSteppable(particles);
+        createParticleBursts(textureAtlas);
 
         // create buttons names
         final String[] interactButtonIDs = new String[] {
@@ -168,18 +263,23 @@ public class MainGameScreen extends CommonScreen implements ClickListener, DragL
         btnDragDown.setDragListener(this);
         statusPanelGroup.addActor(btnDragDown);
 
+        // add the needs of the pet next to it
+        final BitmapFont needsFont = game.assets.getAsset(FontAsset.ROBOTO_SMALL);
+        needLabels = new NumberLabel[LBL_NEEDS.length];
+        for (int i = 0; i < LBL_NEEDS.length; i++) {
+            final NumberLabel label = new NumberLabel(LBL_NEEDS[i], needsFont, Color.WHITE,
+                    NEED_PREFIXES[i], "");
+            label.x = swipeArrowTextureRegion.getRegionWidth() + marginBetweenButtons;
+            label.y = stage.top() - needsFont.getLineHeight() * (i + 1);
+            statusPanelGroup.addActor(label);
+            needLabels[i] = label;
+        }
+
         // add an FPS label (subject to configuration)
         if (game.config.logFps) {
-            final String FONT_CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789][_!$%#@|\\/?-+=()*&.:;,{}\"`'<>";
-            BitmapFont font = TrueTypeFontFactory.createBitmapFont(
-                    Gdx.files.internal("fonts/Roboto-Regular.ttf"),
-                    FONT_CHARACTERS, stage.width(), stage.height(), 25.0f, Gdx.graphics.getWidth(),
-                    Gdx.graphics.getHeight());
-            final Label.LabelStyle labelStyle = new Label.LabelStyle(
-                    font,
-                    Color.RED);
-            fpsLabel = new Label("FPS: " + Gdx.graphics.getFramesPerSecond(), labelStyle);
-            fpsLabel.y = -15;
+            fpsLabel = new NumberLabel(LBL_FPS, needsFont, Color.RED, "FPS: ", "");
+            fpsLabel.setValue(Gdx.graphics.getFramesPerSecond());
+            fpsLabel.y = 5;
             overlayGroup.addActor(fpsLabel);
         }
 
@@ -190,14 +290,18 @@ public class MainGameScreen extends CommonScreen implements ClickListener, DragL
         uiGroup.addActor(topButtonsGroup);
 
         // sub groups to the 'background' group
-        bgDistantGroup.addActor(bgPlanetsBackground);
-        bgDistantGroup.addActor(bgHillsMidground);
-        bgDistantGroup.addActor(bgHillsForeground);
+        bgDistantGroup.addActor(distantLayer);
 
         bgNearGroup.y = -50;
-        bgDistantGroup.y = bgNearGroup.y + bgGround.height;
+        bgDistantGroup.y = bgNearGroup.y + nearLayer.height;
 
-        bgNearGroup.addActor(bgGround);
+        bgNearGroup.addActor(nearLayer);
+
+        // the background groups only translate, which does not need a
+        // transform matrix and the batch flushes that come with it
+        backgroundGroup.transform = false;
+        bgDistantGroup.transform = false;
+        bgNearGroup.transform = false;
 
         /* Prepare main groups */
 
@@ -209,6 +313,7 @@ public class MainGameScreen extends CommonScreen implements ClickListener, DragL
 
         // add creature to main group
         foregroundGroup.addActor(creature);
+        foregroundGroup.addActor(particles);
 
         // add groups to 'overlay'
         overlayGroup.addActor(uiGroup);
@@ -221,28 +326,152 @@ public class MainGameScreen extends CommonScreen implements ClickListener, DragL
 
     @Override
     public void update(float delta) {
+        // the distant background lags behind the camera
+        distantLayer.offsetX = (camera.position.x - stage.centerX()) * DISTANT_PARALLAX;
+        distantLayer.offsetY = (camera.position.y - stage.centerY()) * DISTANT_PARALLAX;
+        particles.density = game.quality.getTier().effectsScale;
+        if (game.quality.getTier() != layerTier) {
+            fillDistantLayer(game.quality.getTier());
+        }
+        if (camera.zoom != layerZoom) {
+            // render the layers at the new resolution
+            layerZoom = camera.zoom;
+            distantLayer.invalidate();
+            nearLayer.invalidate();
+        }
+        if (game.colorGrading != null) {
+            game.colorGrading.setDaylight(getDaylight());
+        }
+        showNeeds();
         super.update(delta);
         if (fpsLabel != null) {
             assert game.config.logFps;
-            fpsLabel.setText("FPS: " + Gdx.graphics.getFramesPerSecond());
+            fpsLabel.setValue(Gdx.graphics.getFramesPerSecond());
         }
     }
 
+    private void createParticleBursts(TextureAtlas textureAtlas) {
+        // crumbs fly up and fall down again
+        crumbs = new ParticleBurst(textureAtlas, "Crumb");
+        crumbs.count = 30;
+        crumbs.minLife = 0.6f;
+        crumbs.maxLife = 1.2f;
+        crumbs.minSpeed = 80;
+        crumbs.maxSpeed = 220;
+        crumbs.minAngle = 30;
+        crumbs.maxAngle = 150;
+        crumbs.gravity = -500;
+        crumbs.minSpin = -360;
+        crumbs.maxSpin = 360;
+
+        // bubbles slowly rise and grow
+        bubbles = new ParticleBurst(textureAtlas, "Bubble");
+        bubbles.count = 25;
+        bubbles.minLife = 1;
+        bubbles.maxLife = 2;
+        bubbles.minSpeed = 30;
+        bubbles.maxSpeed = 90;
+        bubbles.minAngle = 60;
+        bubbles.maxAngle = 120;
+        bubbles.gravity = 40;
+        bubbles.startScale = 0.5f;
+        bubbles.endScale = 1.2f;
+
+        // sparkles burst out in all directions and shrink
+        sparkles = new ParticleBurst(textureAtlas, "Sparkle");
+        sparkles.count = 20;
+        sparkles.minLife = 0.5f;
+        sparkles.maxLife = 1;
+        sparkles.minSpeed = 40;
+        sparkles.maxSpeed = 140;
+        sparkles.minSpin = 90;
+        sparkles.maxSpin = 270;
+        sparkles.endScale = 0.2f;
+    }
+
+    /**
+     * Show the latest needs of the pet: the labels of the status panel, and
+     * the creature looks sick while it is.
+     */
+    private void showNeeds() {
+        game.simulation.read(pet, needs);
+        needLabels[HEALTH].setValue(needs.health);
+        needLabels[HUNGER].setValue(needs.hunger);
+        needLabels[HAPPY].setValue(needs.happy);
+        needLabels[BOWEL].setValue(needs.bowel);
+        // other clips, e.g. eating, are played out first
+        final Clip clip = creature.getClip();
+        if (needs.sick && clip == Clip.IDLE) {
+            creature.play(Clip.SICK);
+        } else if (!needs.sick && clip == Clip.SICK) {
+            creature.play(Clip.IDLE);
+        }
+    }
+
+    /**
+     * @return true if the needs shown by {@link #showNeeds()} are the same
+     */
+    private static boolean hasSameNeeds(CreatureState a, CreatureState b) {
+        return a.health == b.health && a.hunger == b.hunger && a.happy == b.happy
+                && a.bowel == b.bowel && a.sick == b.sick;
+    }
+
+    private void emitAtCreature(ParticleBurst burst) {
+        particles.emit(burst, creature.x + creature.width / 2, creature.y + creature.height / 2);
+    }
+
+    @Override
+    public boolean needsContinuousRendering() {
+        return super.needsContinuousRendering()
+                || (particles != null && particles.getLiveCount() > 0)
+                || (creature != null && creature.isAnimating());
+    }
+
+    /**
+     * Fill the distant background with as many layers as the quality allows.
+     * Layers are dropped starting with the midground hills, which matter the
+     * least.
+     */
+    private void fillDistantLayer(QualityTier tier) {
+        layerTier = tier;
+        distantLayer.clear();
+        distantLayer.add(planetsRegion, 0, 0);
+        if (tier.backgroundLayers > 2) {
+            distantLayer.add(hillsMidgroundRegion, 0, 0);
+        }
+        if (tier.backgroundLayers > 1) {
+            distantLayer.add(hillsForegroundRegion, 0, 0);
+        }
+    }
+
+    /**
+     * @return 0 at local midnight, rising to 1 at noon
+     */
+    private float getDaylight() {
+        final long now = System.currentTimeMillis();
+        final long timeOfDay = (now + timeZone.getOffset(now)) % MILLIS_PER_DAY;
+        return 0.5f - 0.5f * (float) Math.cos(2 * Math.PI * timeOfDay / MILLIS_PER_DAY);
+    }
+
     @Override
     public final void click(Actor actor, float x, float y) {
         // touch input was received, time to find the culprit
         if (actor == buttons[FOOD]) {
             Gdx.app.debug(TAG, "Touch on food button");
-            camera.rotate(1, 0, 0, 1);
+            game.simulation.submit(pet, CareAction.FEED);
+            emitAtCreature(crumbs);
+            creature.play(Clip.EAT);
         } else if (actor == buttons[TOILET]) {
             Gdx.app.debug(TAG, "Touch on toilet button");
-            camera.rotate(-1, 0, 0, 1);
+            game.simulation.submit(pet, CareAction.TOILET);
+            emitAtCreature(sparkles);
         } else if (actor == buttons[SHOWER]) {
             Gdx.app.debug(TAG, "Touch on shower button");
-            camera.zoom += 0.02;
+            game.simulation.submit(pet, CareAction.SHOWER);
+            emitAtCreature(bubbles);
         } else if (actor == buttons[LIGHT]) {
             Gdx.app.debug(TAG, "Touch on light button");
-            camera.zoom -= 0.02;
+            creature.play(creature.getClip() == Clip.SLEEP ? Clip.IDLE : Clip.SLEEP);
         } else if (actor == btnDragDown) {
             Gdx.app.debug(TAG, "Touch on arrow");
             // do nothing, handle in drag()
@@ -265,13 +494,52 @@ public class MainGameScreen extends CommonScreen implements ClickListener, DragL
         }
     }
 
+    @Override
+    public Asset<?>[] getAssets() {
+        return ASSETS;
+    }
+
     @Override
     public void loadResources() {
-        game.assets.loadAsset(TextureAtlasAsset.MAIN_GAME);
+        for (Asset<?> asset : getAssets()) {
+            game.residency.acquire(this, asset);
+        }
+    }
+
+    @Override
+    public void show() {
+        super.show();
+        game.simulation.setListener(needsListener);
+    }
+
+    @Override
+    public void hide() {
+        game.simulation.setListener(null);
+        super.hide();
+        if (game.colorGrading != null) {
+            // the night only falls on the main game
+            game.colorGrading.setDaylight(1);
+        }
+    }
+
+    @Override
+    public void resume() {
+        super.resume();
+        if (distantLayer != null) {
+            // frame buffer contents do not survive a lost GL context
+            distantLayer.invalidate();
+            nearLayer.invalidate();
+        }
     }
 
     @Override
     public void unloadResources() {
-        game.assets.unloadAsset(TextureAtlasAsset.MAIN_GAME);
+        if (distantLayer != null) {
+            distantLayer.dispose();
+            nearLayer.dispose();
+            distantLayer = null;
+            nearLayer = null;
+        }
+        game.residency.releaseAll(this);
     }
 }
@@ -9,6 +9,7 @@ import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Button;
 import com.badlogic.gdx.scenes.scene2d.ui.ClickListener;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
+import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets.Asset;
 import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets.TextureAtlasAsset;
 import com.redditandroiddevelopers.tamagotchi.TamagotchiGame;
 
@@ -16,6 +17,10 @@ public class MainMenuScreen extends CommonScreen implements ClickListener {
 
     private static final String TAG = "Tamagotchi:MainMenuScreen";
 
+    private static final Asset<?>[] ASSETS = new Asset<?>[] {
+            TextureAtlasAsset.MAIN_MENU
+    };
+
     private Button btnPlay;
     private Button btnSelect;
     private Button btnMemories;
@@ -31,12 +36,12 @@ public class MainMenuScreen extends CommonScreen implements ClickListener {
     }
 
     @Override
-    public final void show() {
-        super.show();
-        layout();
+    protected final boolean isRetained() {
+        return true;
     }
 
-    private void layout() {
+    @Override
+    protected void layout() {
         final TextureAtlas textureAtlas = game.assets.getAsset(TextureAtlasAsset.MAIN_MENU);
 
         // adding the game name
@@ -92,14 +97,21 @@ public class MainMenuScreen extends CommonScreen implements ClickListener {
         }
     }
 
+    @Override
+    public Asset<?>[] getAssets() {
+        return ASSETS;
+    }
+
     @Override
     public void loadResources() {
-        game.assets.loadAsset(TextureAtlasAsset.MAIN_MENU);
+        for (Asset<?> asset : ASSETS) {
+            game.residency.acquire(this, asset);
+        }
     }
 
     @Override
     public void unloadResources() {
-        game.assets.unloadAsset(TextureAtlasAsset.MAIN_MENU);
+        game.residency.releaseAll(this);
     }
 
     @Override
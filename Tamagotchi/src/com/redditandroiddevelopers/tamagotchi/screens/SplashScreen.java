@@ -1,21 +1,38 @@
-
 package com.redditandroiddevelopers.tamagotchi.screens;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
+import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets.TextureAtlasAsset;
 import com.redditandroiddevelopers.tamagotchi.TamagotchiGame;
 
 /**
- * A simple splash screen that is shown when the game is started. It
- * automatically transitions to the MainMenuScreen after 3 seconds.
+ * A simple splash screen that is shown when the game is started. It streams in
+ * the texture atlases of the game while displaying a progress bar, and
+ * transitions to the MainMenuScreen once everything is loaded. The atlases are
+ * released again when leaving, which leaves them warm in the
+ * {@link com.redditandroiddevelopers.tamagotchi.AssetResidencyManager}.
  */
 public class SplashScreen extends CommonScreen {
 
     private static final String TAG = "Tamagotchi:SplashScreen";
 
+    private static final float PROGRESS_BAR_WIDTH = 300;
+    private static final float PROGRESS_BAR_HEIGHT = 8;
+    private static final float PROGRESS_BAR_Y = 20;
+
+    private Texture splashTexture;
+    private Texture progressTexture;
+    private float progress;
+    private boolean finishedLoading;
+    /** Whether the switch to the main menu has been requested */
+    private boolean leaving;
+
     public SplashScreen(TamagotchiGame game) {
         super(game);
     }
@@ -26,31 +43,65 @@ public class SplashScreen extends CommonScreen {
     }
 
     @Override
-    public final void show() {
-        super.show();
+    protected final void layout() {
+        leaving = false;
 
         // load Reddit alien texture
-        final Image splashLogo = new Image(new Texture(Gdx.files.internal("RedditAlien.png")));
-        splashLogo.x = getCenterX(splashLogo.getRegion().getTexture());
-        splashLogo.y = getCenterY(splashLogo.getRegion().getTexture());
+        splashTexture = new Texture(Gdx.files.internal("RedditAlien.png"));
+        final Image splashLogo = new Image(splashTexture);
+        splashLogo.x = getCenterX(splashTexture);
+        splashLogo.y = getCenterY(splashTexture);
         stage.addActor(splashLogo);
 
-        // begin loading all assets (asynchronously)
-        //        game.assets.loadAssets();
+        // a single white pixel, stretched and tinted to draw the progress bar
+        final Pixmap pixmap = new Pixmap(1, 1, Format.RGBA8888);
+        pixmap.setColor(Color.WHITE);
+        pixmap.fill();
+        progressTexture = new Texture(pixmap);
+        pixmap.dispose();
+
+        // begin loading all texture atlases (asynchronously) so that the
+        // first visit of every screen is instant
+        for (TextureAtlasAsset textureAtlasAsset : TextureAtlasAsset.values()) {
+            game.residency.acquire(this, textureAtlasAsset);
+        }
+    }
+
+    @Override
+    public boolean needsContinuousRendering() {
+        // the loading progress only advances while frames are rendered
+        return !finishedLoading;
     }
 
     @Override
     public final void update(float delta) {
         super.update(delta);
 
-        //        final float progress = game.assets.getProgress();
-        //        Gdx.app.log(TAG, "Loading assets ... " + (progress * 100) + "% done");
-        //        if (game.assets.update()) {
-        //            // we are done loading, move to main menu screen
-        //            Gdx.app.log(TAG, "Loading assets ... finished");
-        //            game.updateState(TamagotchiGame.STATE_MAIN_MENU);
-        //        }
-        game.updateState(TamagotchiGame.STATE_MAIN_MENU);
+        finishedLoading = game.residency.update(game.config.assetLoadBudget);
+        progress = game.assets.getProgress();
+        Gdx.app.debug(TAG, "Loading assets ... " + (progress * 100) + "% done");
+
+        if (finishedLoading && !leaving) {
+            // we are done loading, move to main menu screen
+            leaving = true;
+            Gdx.app.log(TAG, "Loading assets ... finished");
+            game.updateState(TamagotchiGame.STATE_MAIN_MENU);
+        }
+    }
+
+    @Override
+    public final void draw() {
+        super.draw();
+
+        final SpriteBatch batch = stage.getSpriteBatch();
+        final float x = (stage.width() - PROGRESS_BAR_WIDTH) / 2;
+        batch.begin();
+        batch.setColor(Color.GRAY);
+        batch.draw(progressTexture, x, PROGRESS_BAR_Y, PROGRESS_BAR_WIDTH, PROGRESS_BAR_HEIGHT);
+        batch.setColor(Color.WHITE);
+        batch.draw(progressTexture, x, PROGRESS_BAR_Y, PROGRESS_BAR_WIDTH * progress,
+                PROGRESS_BAR_HEIGHT);
+        batch.end();
     }
 
     /**
@@ -77,13 +128,20 @@ public class SplashScreen extends CommonScreen {
 
     @Override
     public void loadResources() {
-        // TODO Auto-generated method stub
-
+        // the splash screen only uses its own textures, see layout()
     }
 
     @Override
     public void unloadResources() {
-        // TODO Auto-generated method stub
-
+        // hand the preloaded texture atlases over to the residency cache
+        game.residency.releaseAll(this);
+        if (splashTexture != null) {
+            splashTexture.dispose();
+            splashTexture = null;
+        }
+        if (progressTexture != null) {
+            progressTexture.dispose();
+            progressTexture = null;
+        }
     }
 }
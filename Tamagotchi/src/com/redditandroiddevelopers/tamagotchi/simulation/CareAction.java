@@ -0,0 +1,16 @@
+package com.redditandroiddevelopers.tamagotchi.simulation;
+
+/**
+ * The ways the player takes care of a creature. Actions are submitted to the
+ * {@link NeedsSimulation} and take effect at the start of the next tick, so
+ * their outcome does not depend on the thread or the moment they were
+ * submitted at.
+ */
+public enum CareAction {
+    /** Lowers the hunger and cheers the creature up a little */
+    FEED,
+    /** Empties the bowel and teaches some discipline */
+    TOILET,
+    /** Cures the sickness caused by a full bowel and cheers the creature up */
+    SHOWER
+}
@@ -0,0 +1,587 @@
+package com.redditandroiddevelopers.tamagotchi.simulation;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.redditandroiddevelopers.tamagotchi.model.CommonModel;
+import com.redditandroiddevelopers.tamagotchi.model.Creature;
+import com.redditandroiddevelopers.tamagotchi.model.CreatureEvolution;
+import com.redditandroiddevelopers.tamagotchi.model.CreatureRaiseType;
+import com.redditandroiddevelopers.tamagotchi.model.CreatureState;
+import com.redditandroiddevelopers.tamagotchi.model.CreatureType;
+import com.redditandroiddevelopers.tamagotchi.model.Sickness;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * Holds the needs of a large population of creatures in parallel primitive
+ * columns instead of one object graph per creature, so a tick runs through
+ * a few sequential arrays without following references or allocating. The
+ * types, raise types, sicknesses and evolutions the creatures refer to are
+ * interned into small tables and referenced by index: saved objects by their
+ * id, unsaved objects (id 0) by identity. The rules are the same as for a
+ * {@link SimulatedCreature}, with the same outcome.
+ * <p>
+ * Creatures are addressed by their index, from 0 to {@link #size()}
+ * (exclusive). Removing a creature moves the last one into its index. The
+ * model objects are only used by {@link #add(CreatureState, CreatureEvolution)},
+ * {@link #read(int, CreatureState)} and {@link #write(int, CreatureState)}.
+ * Not thread safe, except that disjoint ranges of creatures may be advanced
+ * by {@link #tick(int, int, IntArray)} and
+ * {@link #fastForward(int, int, long, IntArray, Scratch)} on several threads
+ * at once, each with a {@link Scratch} of its own.
+ */
+public class CreatureStore {
+
+    private static final int ACTION_COUNT = CareAction.values().length;
+    private static final CareAction[] ACTIONS = CareAction.values();
+
+    private int size;
+
+    // identity, only used by the views
+    private long[] ids;
+    private Creature[] creatures;
+
+    // interned references
+    private int[] types;
+    private int[] raiseTypes;
+    /** -1 if the creature has no sickness */
+    private int[] sicknesses;
+    private int[] evolutions;
+
+    // simulation
+    /** The multiplier of the raise type in thousandths */
+    private int[] rates;
+    private long[] ages;
+    /** The number of submitted actions, {@link #ACTION_COUNT} per creature */
+    private int[] pending;
+    private int pendingTotal;
+
+    // needs
+    private int[] health;
+    private int[] bowel;
+    private int[] discipline;
+    private int[] hunger;
+    private int[] happy;
+    private int[] experience;
+    private boolean[] sick;
+
+    /**
+     * Model objects by their index, the first object seen standing in for
+     * all objects with the same id. Unsaved objects have no id yet, so each
+     * of them gets an index of its own.
+     */
+    private static class Table<T extends CommonModel> {
+
+        final ArrayList<T> values = new ArrayList<T>();
+        final HashMap<Long, Integer> indices = new HashMap<Long, Integer>();
+        final IdentityHashMap<T, Integer> unsavedIndices = new IdentityHashMap<T, Integer>();
+
+        /**
+         * @return the index of the object, added if necessary
+         */
+        int intern(T value) {
+            final boolean unsaved = value.id == 0;
+            final Integer index = unsaved ? unsavedIndices.get(value)
+                    : indices.get(Long.valueOf(value.id));
+            if (index != null) {
+                return index.intValue();
+            }
+            values.add(value);
+            final Integer added = Integer.valueOf(values.size() - 1);
+            if (unsaved) {
+                unsavedIndices.put(value, added);
+            } else {
+                indices.put(Long.valueOf(value.id), added);
+            }
+            return added.intValue();
+        }
+
+        T get(int index) {
+            return values.get(index);
+        }
+
+    }
+
+    private final Table<CreatureType> typeTable = new Table<CreatureType>();
+    private final Table<CreatureRaiseType> raiseTypeTable = new Table<CreatureRaiseType>();
+    private final Table<Sickness> sicknessTable = new Table<Sickness>();
+    private final Table<CreatureEvolution> evolutionTable = new Table<CreatureEvolution>();
+
+    // the limits of the interned evolutions, indexed like the table
+    private int[] maxHealth = new int[0];
+    private int[] maxBowel = new int[0];
+    private int[] maxDiscipline = new int[0];
+    private int[] maxHunger = new int[0];
+    private int[] maxHappy = new int[0];
+    private int[] maxExperience = new int[0];
+    /** The number of evolutions whose limits were copied */
+    private int evolutionCount;
+
+    /**
+     * The objects a thread advances creatures by a number of ticks with, so
+     * {@link CreatureStore#fastForward(int, int, long, IntArray, Scratch)}
+     * does not allocate. Belongs to one store and is only ever used by one
+     * thread at a time.
+     */
+    public static final class Scratch {
+
+        /** A creature of each raise type to run the rules on, by its index */
+        SimulatedCreature[] creatures = new SimulatedCreature[0];
+
+    }
+
+    /** Used when advancing all creatures on the calling thread */
+    private final Scratch localScratch = new Scratch();
+
+    /**
+     * @param capacity the number of creatures to make room for; the store
+     *            grows when more are added
+     */
+    public CreatureStore(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    private void allocate(int capacity) {
+        ids = copyOf(ids, capacity);
+        creatures = copyOf(creatures, capacity);
+        types = copyOf(types, capacity);
+        raiseTypes = copyOf(raiseTypes, capacity);
+        sicknesses = copyOf(sicknesses, capacity);
+        evolutions = copyOf(evolutions, capacity);
+        rates = copyOf(rates, capacity);
+        ages = copyOf(ages, capacity);
+        pending = copyOf(pending, capacity * ACTION_COUNT);
+        health = copyOf(health, capacity);
+        bowel = copyOf(bowel, capacity);
+        discipline = copyOf(discipline, capacity);
+        hunger = copyOf(hunger, capacity);
+        happy = copyOf(happy, capacity);
+        experience = copyOf(experience, capacity);
+        sick = copyOf(sick, capacity);
+    }
+
+    /**
+     * @return the number of creatures
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add a creature.
+     *
+     * @param state the state of the creature, its raise type must be set
+     * @param limits the evolution the creature is in; its limits are copied
+     *            the first time an evolution with its id, or this unsaved
+     *            evolution, is added
+     * @return the index of the creature
+     */
+    public int add(CreatureState state, CreatureEvolution limits) {
+        if (size == ids.length) {
+            allocate(size * 2);
+        }
+        final int index = size++;
+        evolutions[index] = internEvolution(limits);
+        ages[index] = 0;
+        for (int a = 0; a < ACTION_COUNT; a++) {
+            pending[index * ACTION_COUNT + a] = 0;
+        }
+        write(index, state);
+        return index;
+    }
+
+    /**
+     * Remove a creature; the last creature takes its index.
+     *
+     * @param index the index of the creature
+     */
+    public void remove(int index) {
+        checkIndex(index);
+        final int last = --size;
+        for (int a = 0; a < ACTION_COUNT; a++) {
+            pendingTotal -= pending[index * ACTION_COUNT + a];
+            pending[index * ACTION_COUNT + a] = pending[last * ACTION_COUNT + a];
+        }
+        ids[index] = ids[last];
+        creatures[index] = creatures[last];
+        creatures[last] = null;
+        types[index] = types[last];
+        raiseTypes[index] = raiseTypes[last];
+        sicknesses[index] = sicknesses[last];
+        evolutions[index] = evolutions[last];
+        rates[index] = rates[last];
+        ages[index] = ages[last];
+        health[index] = health[last];
+        bowel[index] = bowel[last];
+        discipline[index] = discipline[last];
+        hunger[index] = hunger[last];
+        happy[index] = happy[last];
+        experience[index] = experience[last];
+        sick[index] = sick[last];
+    }
+
+    /**
+     * Copy a creature into a model object, e.g. to persist or show it.
+     *
+     * @param index the index of the creature
+     * @param out receives the state of the creature
+     */
+    public void read(int index, CreatureState out) {
+        checkIndex(index);
+        out.id = ids[index];
+        out.creature = creatures[index];
+        out.raiseType = raiseTypeTable.get(raiseTypes[index]);
+        out.sickness = sicknesses[index] < 0 ? null : sicknessTable.get(sicknesses[index]);
+        out.health = health[index];
+        out.bowel = bowel[index];
+        out.discipline = discipline[index];
+        out.hunger = hunger[index];
+        out.happy = happy[index];
+        out.sick = sick[index];
+        out.experience = experience[index];
+    }
+
+    /**
+     * Overwrite a creature with a model object, e.g. after the player edited
+     * it. The age and the submitted actions are kept.
+     *
+     * @param index the index of the creature
+     * @param state the new state of the creature, its raise type must be set
+     */
+    public void write(int index, CreatureState state) {
+        checkIndex(index);
+        ids[index] = state.id;
+        creatures[index] = state.creature;
+        types[index] = state.creature == null || state.creature.type == null ? -1
+                : typeTable.intern(state.creature.type);
+        raiseTypes[index] = internRaiseType(state.raiseType);
+        sicknesses[index] = state.sickness == null ? -1 : sicknessTable.intern(state.sickness);
+        rates[index] = SimulatedCreature.toRate(state.raiseType.multiplier);
+        health[index] = state.health;
+        bowel[index] = state.bowel;
+        discipline[index] = state.discipline;
+        hunger[index] = state.hunger;
+        happy[index] = state.happy;
+        experience[index] = state.experience;
+        sick[index] = state.sick;
+    }
+
+    /**
+     * @param index the index of the creature
+     * @return the evolution the creature is in
+     */
+    public CreatureEvolution getEvolution(int index) {
+        checkIndex(index);
+        return evolutionTable.get(evolutions[index]);
+    }
+
+    /**
+     * @param index the index of the creature
+     * @return the type of the creature, or null if it has no creature
+     */
+    public CreatureType getType(int index) {
+        checkIndex(index);
+        return types[index] < 0 ? null : typeTable.get(types[index]);
+    }
+
+    /**
+     * @param index the index of the creature
+     * @return the number of ticks simulated for the creature
+     */
+    public long getAge(int index) {
+        checkIndex(index);
+        return ages[index];
+    }
+
+    /**
+     * Set the number of ticks simulated for a creature, e.g. when it was
+     * simulated before it was added. The needs change at ticks derived from
+     * the age, see {@link NeedRules}.
+     *
+     * @param index the index of the creature
+     * @param age the number of ticks simulated for the creature
+     */
+    public void setAge(int index, long age) {
+        checkIndex(index);
+        ages[index] = age;
+    }
+
+    /**
+     * @param index the index of the creature
+     * @return true if the creature has died
+     */
+    public boolean isDead(int index) {
+        checkIndex(index);
+        return health[index] <= 0;
+    }
+
+    /**
+     * Submit a care action; it is applied at the start of the next tick.
+     *
+     * @param index the index of the creature taken care of
+     * @param action what the player did
+     */
+    public void submit(int index, CareAction action) {
+        checkIndex(index);
+        pending[index * ACTION_COUNT + action.ordinal()]++;
+        pendingTotal++;
+    }
+
+    /**
+     * Advance all creatures by one tick, see
+     * {@link NeedRules#tick(SimulatedCreature)}.
+     */
+    public void tick() {
+        applyPending();
+        tick(0, size, null);
+    }
+
+    /**
+     * Advance a range of creatures by one tick, e.g. to split the population
+     * among threads. The submitted actions must have been applied by
+     * {@link #applyPending()} first.
+     *
+     * @param from the index of the first creature (inclusive)
+     * @param to the index of the last creature (exclusive)
+     * @param died receives the indices of the creatures that died during the
+     *            tick, in ascending order; may be null
+     */
+    public void tick(int from, int to, IntArray died) {
+        for (int i = from; i < to; i++) {
+            if (health[i] <= 0) {
+                // dead
+                continue;
+            }
+            final int evolution = evolutions[i];
+            final long age = ages[i]++;
+            final int rate = rates[i];
+            hunger[i] = NeedRules.rise(hunger[i], maxHunger[evolution], age, rate,
+                    NeedRules.HUNGER_PERIOD);
+            bowel[i] = NeedRules.rise(bowel[i], maxBowel[evolution], age, rate,
+                    NeedRules.BOWEL_PERIOD);
+            discipline[i] = NeedRules.decay(discipline[i], age, rate,
+                    NeedRules.DISCIPLINE_PERIOD);
+
+            final boolean starving = hunger[i] >= maxHunger[evolution];
+            if (bowel[i] >= maxBowel[evolution]) {
+                sick[i] = true;
+            }
+            happy[i] = NeedRules.decayHappy(happy[i], age, rate, starving);
+            health[i] = NeedRules.nextHealth(health[i], maxHealth[evolution], age, rate,
+                    starving, sick[i]);
+            if (!starving && !sick[i]) {
+                experience[i] = NeedRules.rise(experience[i], maxExperience[evolution], age,
+                        rate, NeedRules.EXPERIENCE_PERIOD);
+            }
+            if (health[i] <= 0 && died != null) {
+                died.add(i);
+            }
+        }
+    }
+
+    /**
+     * Advance all creatures by a number of ticks at once, see
+     * {@link NeedRules#fastForward(SimulatedCreature, long)}.
+     *
+     * @param ticks the number of ticks to advance
+     */
+    public void fastForward(long ticks) {
+        if (ticks <= 0) {
+            return;
+        }
+        applyPending();
+        fastForward(0, size, ticks, null, localScratch);
+    }
+
+    /**
+     * Advance a range of creatures by a number of ticks at once. The
+     * submitted actions must have been applied by {@link #applyPending()}
+     * first.
+     *
+     * @param from the index of the first creature (inclusive)
+     * @param to the index of the last creature (exclusive)
+     * @param ticks the number of ticks to advance
+     * @param died receives the indices of the creatures that died during the
+     *            ticks, in ascending order; may be null
+     * @param scratch the objects of the calling thread
+     */
+    public void fastForward(int from, int to, long ticks, IntArray died, Scratch scratch) {
+        for (int i = from; i < to; i++) {
+            if (health[i] <= 0) {
+                // dead
+                continue;
+            }
+            final SimulatedCreature creature = scratchCreature(scratch, raiseTypes[i]);
+            load(i, creature);
+            NeedRules.fastForward(creature, ticks);
+            store(creature, i);
+            if (health[i] <= 0 && died != null) {
+                died.add(i);
+            }
+        }
+    }
+
+    private SimulatedCreature scratchCreature(Scratch scratch, int raiseType) {
+        SimulatedCreature[] creatures = scratch.creatures;
+        if (raiseType >= creatures.length) {
+            // raise types are only ever added
+            final SimulatedCreature[] grown = new SimulatedCreature[raiseTypeTable.values.size()];
+            System.arraycopy(creatures, 0, grown, 0, creatures.length);
+            scratch.creatures = creatures = grown;
+        }
+        if (creatures[raiseType] == null) {
+            final CreatureState state = new CreatureState();
+            state.raiseType = raiseTypeTable.get(raiseType);
+            creatures[raiseType] = new SimulatedCreature(state, new CreatureEvolution());
+        }
+        return creatures[raiseType];
+    }
+
+    /**
+     * Copy a creature into the fields a {@link SimulatedCreature} is
+     * simulated by.
+     */
+    private void load(int i, SimulatedCreature creature) {
+        final CreatureState state = creature.state;
+        final CreatureEvolution limits = creature.limits;
+        final int evolution = evolutions[i];
+        limits.maxHealth = maxHealth[evolution];
+        limits.maxBowel = maxBowel[evolution];
+        limits.maxDiscipline = maxDiscipline[evolution];
+        limits.maxHunger = maxHunger[evolution];
+        limits.maxHappy = maxHappy[evolution];
+        limits.maxExperience = maxExperience[evolution];
+        state.health = health[i];
+        state.bowel = bowel[i];
+        state.discipline = discipline[i];
+        state.hunger = hunger[i];
+        state.happy = happy[i];
+        state.experience = experience[i];
+        state.sick = sick[i];
+        creature.age = ages[i];
+    }
+
+    private void store(SimulatedCreature creature, int i) {
+        final CreatureState state = creature.state;
+        health[i] = state.health;
+        bowel[i] = state.bowel;
+        discipline[i] = state.discipline;
+        hunger[i] = state.hunger;
+        happy[i] = state.happy;
+        experience[i] = state.experience;
+        sick[i] = state.sick;
+        ages[i] = creature.age;
+    }
+
+    /**
+     * Apply the submitted actions of the living creatures, in the same order
+     * as {@link NeedRules#tick(SimulatedCreature)} does at the start of a
+     * tick.
+     */
+    public void applyPending() {
+        if (pendingTotal == 0) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            if (health[i] <= 0) {
+                continue;
+            }
+            for (int a = 0; a < ACTION_COUNT; a++) {
+                final int slot = i * ACTION_COUNT + a;
+                for (; pending[slot] > 0; pending[slot]--) {
+                    apply(i, ACTIONS[a]);
+                    pendingTotal--;
+                }
+            }
+        }
+    }
+
+    private void apply(int i, CareAction action) {
+        final int evolution = evolutions[i];
+        switch (action) {
+            case FEED:
+                hunger[i] = Math.max(0, hunger[i] - NeedRules.FEED_HUNGER);
+                happy[i] = Math.min(maxHappy[evolution], happy[i] + NeedRules.FEED_HAPPY);
+                break;
+            case TOILET:
+                bowel[i] = 0;
+                discipline[i] = Math.min(maxDiscipline[evolution],
+                        discipline[i] + NeedRules.TOILET_DISCIPLINE);
+                break;
+            case SHOWER:
+                sick[i] = false;
+                happy[i] = Math.min(maxHappy[evolution], happy[i] + NeedRules.SHOWER_HAPPY);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private int internEvolution(CreatureEvolution limits) {
+        final int index = evolutionTable.intern(limits);
+        if (index == maxHealth.length) {
+            // unsaved evolutions are not shared, so there may be many
+            final int length = Math.max(1, index * 2);
+            maxHealth = copyOf(maxHealth, length);
+            maxBowel = copyOf(maxBowel, length);
+            maxDiscipline = copyOf(maxDiscipline, length);
+            maxHunger = copyOf(maxHunger, length);
+            maxHappy = copyOf(maxHappy, length);
+            maxExperience = copyOf(maxExperience, length);
+        }
+        if (index == evolutionCount) {
+            evolutionCount++;
+            maxHealth[index] = limits.maxHealth;
+            maxBowel[index] = limits.maxBowel;
+            maxDiscipline[index] = limits.maxDiscipline;
+            maxHunger[index] = limits.maxHunger;
+            maxHappy[index] = limits.maxHappy;
+            maxExperience[index] = limits.maxExperience;
+        }
+        return index;
+    }
+
+    private int internRaiseType(CreatureRaiseType raiseType) {
+        return raiseTypeTable.intern(raiseType);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+
+    private static long[] copyOf(long[] array, int length) {
+        final long[] copy = new long[length];
+        if (array != null) {
+            System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+        }
+        return copy;
+    }
+
+    private static int[] copyOf(int[] array, int length) {
+        final int[] copy = new int[length];
+        if (array != null) {
+            System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+        }
+        return copy;
+    }
+
+    private static boolean[] copyOf(boolean[] array, int length) {
+        final boolean[] copy = new boolean[length];
+        if (array != null) {
+            System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+        }
+        return copy;
+    }
+
+    private static Creature[] copyOf(Creature[] array, int length) {
+        final Creature[] copy = new Creature[length];
+        if (array != null) {
+            System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+        }
+        return copy;
+    }
+
+}
@@ -0,0 +1,355 @@
+package com.redditandroiddevelopers.tamagotchi.simulation;
+
+import com.redditandroiddevelopers.tamagotchi.model.CreatureEvolution;
+import com.redditandroiddevelopers.tamagotchi.model.CreatureState;
+
+/**
+ * The rules advancing the needs of a creature by one tick. Hunger and bowel
+ * rise towards their maximum, happiness and discipline decay towards 0. A
+ * starving creature loses health and happiness, a full bowel makes it sick,
+ * and a sick creature loses health; otherwise it heals and gains experience.
+ * A creature without health is dead and does not change anymore.
+ * <p>
+ * Every change happens once per period, given in ticks for a raise type
+ * multiplier of 1; higher multipliers shorten the periods. Only integer
+ * arithmetic is used, and which ticks a change falls on only depends on the
+ * age of the creature, so the same creature with the same actions always
+ * ends up in the same state, on any device.
+ * <p>
+ * Since the needs only ever move in one direction without care, a long time
+ * without the player, e.g. while the application was closed, can be skipped
+ * with {@link #fastForward(SimulatedCreature, long)} in logarithmic time
+ * instead of running every tick.
+ */
+public final class NeedRules {
+
+    // periods in ticks
+    static final int HUNGER_PERIOD = 60;
+    static final int BOWEL_PERIOD = 90;
+    static final int HAPPY_PERIOD = 120;
+    static final int DISCIPLINE_PERIOD = 300;
+    static final int STARVING_HEALTH_PERIOD = 30;
+    static final int STARVING_HAPPY_PERIOD = 60;
+    static final int SICK_HEALTH_PERIOD = 60;
+    static final int HEALING_PERIOD = 120;
+    static final int EXPERIENCE_PERIOD = 60;
+
+    // effects of the care actions
+    static final int FEED_HUNGER = 25;
+    static final int FEED_HAPPY = 5;
+    static final int TOILET_DISCIPLINE = 2;
+    static final int SHOWER_HAPPY = 10;
+
+    /** Cached, since values() returns a new copy every time */
+    private static final CareAction[] ACTIONS = CareAction.values();
+
+    private NeedRules() {
+    }
+
+    /**
+     * @param age the age of the creature in ticks
+     * @param rate the multiplier of the raise type in thousandths
+     * @param period the period of the change in ticks, at a multiplier of 1
+     * @return the number of times a change happens during the tick at that
+     *         age, usually 0 or 1
+     */
+    static int events(long age, int rate, int period) {
+        return (int) (eventsBefore(age + 1, rate, period) - eventsBefore(age, rate, period));
+    }
+
+    /**
+     * @return the number of times a change happened during the ticks before
+     *         the given age, so the changes during a range of ticks are a
+     *         difference of two calls
+     */
+    static long eventsBefore(long age, int rate, int period) {
+        return age * rate / (period * 1000L);
+    }
+
+    /**
+     * @return the number of times a change happens during the ticks from age
+     *         {@code from} (inclusive) to {@code to} (exclusive)
+     */
+    private static long events(long from, long to, int rate, int period) {
+        return eventsBefore(to, rate, period) - eventsBefore(from, rate, period);
+    }
+
+    /**
+     * @return the first tick from {@code from} on at the end of which a stat
+     *         rising by a change per period has risen by {@code amount}, or
+     *         {@link Long#MAX_VALUE} if it never does
+     */
+    private static long firstTickReaching(long from, int rate, int period, int amount) {
+        if (amount <= 0) {
+            return from;
+        }
+        if (rate <= 0) {
+            return Long.MAX_VALUE;
+        }
+        // the smallest age x with eventsBefore(x) >= target; the tick
+        // reaching it is the one before
+        final long scale = period * 1000L;
+        final long target = eventsBefore(from, rate, period) + amount;
+        final long x = (target * scale + rate - 1) / rate;
+        return Math.max(from, x - 1);
+    }
+
+    /**
+     * Find when a creature that keeps gaining experience gains a given amount
+     * of it, e.g. to tell at which tick of a fast forward it reached a goal.
+     * Without care, a creature only ever stops gaining experience, so if it
+     * gained the amount during a range of ticks, it did so from the start of
+     * the range on.
+     *
+     * @param from the age the creature gains experience from
+     * @param multiplier the multiplier of its raise type
+     * @param amount the experience to gain
+     * @return the age of the creature after the tick it has gained the amount
+     *         at, {@link Long#MAX_VALUE} if it never does
+     */
+    public static long getAgeGaining(long from, double multiplier, int amount) {
+        if (amount <= 0) {
+            return from;
+        }
+        final long tick = firstTickReaching(from, SimulatedCreature.toRate(multiplier),
+                EXPERIENCE_PERIOD, amount);
+        return tick == Long.MAX_VALUE ? tick : tick + 1;
+    }
+
+    /**
+     * Advance a creature by one tick, applying the actions submitted for it
+     * first.
+     *
+     * @param creature the creature to advance
+     */
+    public static void tick(SimulatedCreature creature) {
+        final CreatureState state = creature.state;
+        final CreatureEvolution limits = creature.limits;
+        if (creature.isDead()) {
+            return;
+        }
+        applyPending(creature);
+
+        final long age = creature.age++;
+        final int rate = creature.rate;
+        state.hunger = rise(state.hunger, limits.maxHunger, age, rate, HUNGER_PERIOD);
+        state.bowel = rise(state.bowel, limits.maxBowel, age, rate, BOWEL_PERIOD);
+        state.discipline = decay(state.discipline, age, rate, DISCIPLINE_PERIOD);
+
+        final boolean starving = state.hunger >= limits.maxHunger;
+        if (state.bowel >= limits.maxBowel) {
+            state.sick = true;
+        }
+        state.happy = decayHappy(state.happy, age, rate, starving);
+        state.health = nextHealth(state.health, limits.maxHealth, age, rate, starving,
+                state.sick);
+        if (!starving && !state.sick) {
+            state.experience = rise(state.experience, limits.maxExperience, age, rate,
+                    EXPERIENCE_PERIOD);
+        }
+    }
+
+    // the rules of a single tick, shared with the columns of a CreatureStore
+
+    /**
+     * @return a need rising towards its maximum during the tick at that age
+     */
+    static int rise(int value, int max, long age, int rate, int period) {
+        return Math.min(max, value + events(age, rate, period));
+    }
+
+    /**
+     * @return a need decaying towards 0 during the tick at that age
+     */
+    static int decay(int value, long age, int rate, int period) {
+        return Math.max(0, value - events(age, rate, period));
+    }
+
+    /**
+     * @return the happiness after the tick at that age, which decays faster
+     *         while starving
+     */
+    static int decayHappy(int happy, long age, int rate, boolean starving) {
+        // both losses are clamped at 0, so they can be summed up first
+        int loss = events(age, rate, HAPPY_PERIOD);
+        if (starving) {
+            loss += events(age, rate, STARVING_HAPPY_PERIOD);
+        }
+        return Math.max(0, happy - loss);
+    }
+
+    /**
+     * @return the health after the tick at that age, 0 if the creature died
+     */
+    static int nextHealth(int health, int maxHealth, long age, int rate, boolean starving,
+            boolean sick) {
+        if (starving) {
+            health -= events(age, rate, STARVING_HEALTH_PERIOD);
+        }
+        if (sick) {
+            health -= events(age, rate, SICK_HEALTH_PERIOD);
+        }
+        if (!starving && !sick) {
+            health = Math.min(maxHealth, health + events(age, rate, HEALING_PERIOD));
+        }
+        return Math.max(0, health);
+    }
+
+    /**
+     * Advance a creature by a number of ticks at once, with exactly the same
+     * outcome as calling {@link #tick(SimulatedCreature)} that often. The
+     * ticks are split into at most three ranges in which the creature neither
+     * starts to starve nor gets sick, and the changes within a range are
+     * summed up in closed form. Only the tick the creature dies at, if any, is
+     * searched for, in logarithmic time.
+     *
+     * @param creature the creature to advance
+     * @param ticks the number of ticks to advance
+     */
+    public static void fastForward(SimulatedCreature creature, long ticks) {
+        if (ticks <= 0 || creature.isDead()) {
+            return;
+        }
+        // the actions submitted so far take effect on the first tick
+        applyPending(creature);
+
+        final CreatureState state = creature.state;
+        final CreatureEvolution limits = creature.limits;
+        final int rate = creature.rate;
+        final long end = creature.age + ticks;
+        // a creature starts to starve or gets sick at the end of these ticks;
+        // neither ever stops without care
+        final long starvingFrom = firstTickReaching(creature.age, rate, HUNGER_PERIOD,
+                limits.maxHunger - state.hunger);
+        final long sickFrom = state.sick ? creature.age : firstTickReaching(creature.age, rate,
+                BOWEL_PERIOD, limits.maxBowel - state.bowel);
+
+        while (creature.age < end) {
+            final long from = creature.age;
+            final boolean starving = from >= starvingFrom;
+            final boolean sick = from >= sickFrom;
+            long to = end;
+            if (!starving && starvingFrom < to) {
+                to = starvingFrom;
+            }
+            if (!sick && sickFrom < to) {
+                to = sickFrom;
+            }
+
+            if (starving || sick) {
+                // the creature dies at the end of the first tick its health
+                // is used up at
+                final long death = findDeath(from, to, rate, state.health, starving, sick);
+                if (death < to) {
+                    to = death + 1;
+                }
+            } else if (limits.maxHealth <= 0) {
+                // healing caps the health at nothing, which is the end
+                to = from + 1;
+            }
+
+            // the needs change in one direction, so clamping once at the end
+            // of a range is the same as clamping after every tick
+            state.hunger = (int) Math.min(limits.maxHunger,
+                    state.hunger + events(from, to, rate, HUNGER_PERIOD));
+            state.bowel = (int) Math.min(limits.maxBowel,
+                    state.bowel + events(from, to, rate, BOWEL_PERIOD));
+            long happyLoss = events(from, to, rate, HAPPY_PERIOD);
+            if (starving) {
+                happyLoss += events(from, to, rate, STARVING_HAPPY_PERIOD);
+            }
+            state.happy = (int) Math.max(0, state.happy - happyLoss);
+            state.discipline = (int) Math.max(0,
+                    state.discipline - events(from, to, rate, DISCIPLINE_PERIOD));
+            if (sick) {
+                state.sick = true;
+            }
+            if (starving || sick) {
+                state.health = (int) Math.max(0, state.health
+                        - healthLoss(from, to, rate, starving, sick));
+            } else {
+                state.health = (int) Math.min(limits.maxHealth,
+                        state.health + events(from, to, rate, HEALING_PERIOD));
+                state.experience = (int) Math.min(limits.maxExperience,
+                        state.experience + events(from, to, rate, EXPERIENCE_PERIOD));
+            }
+            creature.age = to;
+            if (creature.isDead()) {
+                return;
+            }
+        }
+    }
+
+    private static long healthLoss(long from, long to, int rate, boolean starving,
+            boolean sick) {
+        long loss = 0;
+        if (starving) {
+            loss += events(from, to, rate, STARVING_HEALTH_PERIOD);
+        }
+        if (sick) {
+            loss += events(from, to, rate, SICK_HEALTH_PERIOD);
+        }
+        return loss;
+    }
+
+    /**
+     * @return the first tick in the range at the end of which the health is
+     *         used up, or {@code to} if the creature survives the range
+     */
+    private static long findDeath(long from, long to, int rate, int health,
+            boolean starving, boolean sick) {
+        if (healthLoss(from, to, rate, starving, sick) < health) {
+            return to;
+        }
+        // the loss only grows with the ticks, so search for the first tick
+        long low = from;
+        long high = to - 1;
+        while (low < high) {
+            final long mid = low + (high - low) / 2;
+            if (healthLoss(from, mid + 1, rate, starving, sick) >= health) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private static void applyPending(SimulatedCreature creature) {
+        final int[] pending = creature.pending;
+        for (int i = 0; i < pending.length; i++) {
+            for (; pending[i] > 0; pending[i]--) {
+                apply(creature, ACTIONS[i]);
+            }
+        }
+    }
+
+    /**
+     * Apply a care action to a creature right away.
+     *
+     * @param creature the creature taken care of
+     * @param action what the player did
+     */
+    public static void apply(SimulatedCreature creature, CareAction action) {
+        final CreatureState state = creature.state;
+        final CreatureEvolution limits = creature.limits;
+        switch (action) {
+            case FEED:
+                state.hunger = Math.max(0, state.hunger - FEED_HUNGER);
+                state.happy = Math.min(limits.maxHappy, state.happy + FEED_HAPPY);
+                break;
+            case TOILET:
+                state.bowel = 0;
+                state.discipline = Math.min(limits.maxDiscipline,
+                        state.discipline + TOILET_DISCIPLINE);
+                break;
+            case SHOWER:
+                state.sick = false;
+                state.happy = Math.min(limits.maxHappy, state.happy + SHOWER_HAPPY);
+                break;
+            default:
+                break;
+        }
+    }
+
+}
@@ -0,0 +1,230 @@
+package com.redditandroiddevelopers.tamagotchi.simulation;
+
+import com.redditandroiddevelopers.tamagotchi.model.CreatureState;
+
+import java.util.ArrayList;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Advances the needs of all creatures by the {@link NeedRules} at a fixed
+ * rate of one tick per {@link #TICK_MILLIS}. The ticks are run on a timer
+ * thread of their own, independent of the frame rate and of whether the
+ * screen of a creature is shown at all. The number of ticks is derived from
+ * the wall clock, so a late timer or a paused application is caught up with
+ * on the next run; the missed ticks are skipped in closed form, so catching
+ * up takes about as long after a day as after a minute.
+ * <p>
+ * While simulated, the needs of the creatures live in a {@link CreatureStore}
+ * advanced by a {@link ShardedScheduler}, so large populations are split
+ * among the processors; {@link #read(SimulatedCreature, CreatureState)} gets
+ * the current needs of a creature. All methods may be called from any thread.
+ */
+public class NeedsSimulation {
+
+    /** Learns about the ticks run by the timer, on the timer thread */
+    public interface Listener {
+        /**
+         * Called after the timer ran one or more ticks, outside of the lock of
+         * the simulation, so the creatures can be read from here.
+         */
+        void ticked();
+    }
+
+    /** The duration of a tick in milliseconds */
+    public static final int TICK_MILLIS = 1000;
+
+    /** The creatures, indexed like the store */
+    private final ArrayList<SimulatedCreature> creatures = new ArrayList<SimulatedCreature>();
+    private final CreatureStore store = new CreatureStore(1);
+    private final ShardedScheduler scheduler;
+
+    /** The wall clock time of tick 0, in milliseconds */
+    private final long originMillis;
+    /** The number of ticks run so far */
+    private long ticks;
+
+    private Timer timer;
+    private volatile Listener listener;
+
+    /**
+     * Simulate with one thread per available processor.
+     */
+    public NeedsSimulation() {
+        this(0);
+    }
+
+    /**
+     * @param threads the number of threads to tick the creatures on, see
+     *            {@link ShardedScheduler#ShardedScheduler(CreatureStore, int)}
+     */
+    public NeedsSimulation(int threads) {
+        originMillis = System.currentTimeMillis();
+        scheduler = new ShardedScheduler(store, threads);
+    }
+
+    /**
+     * Start running ticks on the timer thread, first catching up with the
+     * time the simulation was stopped.
+     */
+    public synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        timer = new Timer("Simulation", true);
+        timer.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                final long tick = getTickAt(System.currentTimeMillis());
+                if (tick <= getTicks()) {
+                    return;
+                }
+                advanceTo(tick);
+                final Listener listener = NeedsSimulation.this.listener;
+                if (listener != null) {
+                    listener.ticked();
+                }
+            }
+        }, 0, TICK_MILLIS);
+    }
+
+    /**
+     * Stop running ticks, e.g. while the application is paused.
+     */
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+    }
+
+    /**
+     * Stop running ticks and the worker threads. The simulation must not be
+     * used afterwards.
+     */
+    public synchronized void dispose() {
+        stop();
+        scheduler.shutdown();
+    }
+
+    /**
+     * @param listener learns about the following ticks of the timer; may be
+     *            null
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @param millis a wall clock time in milliseconds
+     * @return the number of ticks that should have been run at that time
+     */
+    public long getTickAt(long millis) {
+        return Math.max(0, (millis - originMillis) / TICK_MILLIS);
+    }
+
+    /**
+     * Run ticks until the given number of ticks has been run.
+     *
+     * @param tick the number of ticks to have run
+     */
+    public synchronized void advanceTo(long tick) {
+        if (tick <= ticks) {
+            return;
+        }
+        final long missed = tick - ticks;
+        if (missed == 1) {
+            scheduler.tick();
+        } else {
+            scheduler.fastForward(missed);
+        }
+        ticks = tick;
+    }
+
+    /**
+     * @return the number of ticks run so far
+     */
+    public synchronized long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Add a creature; it takes part from the next tick on, at its age.
+     *
+     * @param creature the creature to simulate, not simulated yet
+     */
+    public synchronized void add(SimulatedCreature creature) {
+        if (creature.index >= 0) {
+            throw new IllegalArgumentException("The creature is simulated already");
+        }
+        creature.index = store.add(creature.state, creature.limits);
+        store.setAge(creature.index, creature.age);
+        creatures.add(creature);
+    }
+
+    /**
+     * Stop simulating a creature. Its state and age are brought up to date.
+     *
+     * @param creature the creature to stop simulating
+     */
+    public synchronized void remove(SimulatedCreature creature) {
+        final int index = indexOf(creature);
+        store.read(index, creature.state);
+        creature.age = store.getAge(index);
+        store.remove(index);
+        // the last creature takes the index, like in the store
+        final SimulatedCreature last = creatures.remove(creatures.size() - 1);
+        if (last != creature) {
+            creatures.set(index, last);
+            last.index = index;
+        }
+        creature.index = -1;
+    }
+
+    /**
+     * @return the number of simulated creatures
+     */
+    public synchronized int getCreatureCount() {
+        return creatures.size();
+    }
+
+    /**
+     * @param index the index of the creature, from 0 to
+     *            {@link #getCreatureCount()} (exclusive); removing a creature
+     *            moves the last one into its index
+     * @return the creature
+     */
+    public synchronized SimulatedCreature getCreature(int index) {
+        return creatures.get(index);
+    }
+
+    /**
+     * Submit a care action; it is applied at the start of the next tick.
+     *
+     * @param creature the creature taken care of
+     * @param action what the player did
+     */
+    public synchronized void submit(SimulatedCreature creature, CareAction action) {
+        store.submit(indexOf(creature), action);
+    }
+
+    /**
+     * Copy the state of a creature consistently, i.e. not in the middle of a
+     * tick, e.g. to show it.
+     *
+     * @param creature the creature to read
+     * @param out receives the state of the creature
+     */
+    public synchronized void read(SimulatedCreature creature, CreatureState out) {
+        store.read(indexOf(creature), out);
+    }
+
+    private int indexOf(SimulatedCreature creature) {
+        final int index = creature.index;
+        if (index < 0 || creatures.get(index) != creature) {
+            throw new IllegalArgumentException("The creature is not simulated");
+        }
+        return index;
+    }
+
+}
@@ -0,0 +1,197 @@
+package com.redditandroiddevelopers.tamagotchi.simulation;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Advances a {@link CreatureStore} on a fixed pool of worker threads. The
+ * creatures are split into one contiguous shard of indices per thread, and
+ * every shard is ticked by a thread of its own; the rules only ever touch the
+ * creature they advance, so the shards need no locking. Events concerning more
+ * than one creature, for now only deaths, are collected per shard and handed
+ * to the {@link Listener} in shard order once all shards are done, so they
+ * arrive in ascending index order whatever the number of threads.
+ * <p>
+ * With a single thread, e.g. on a single core device, the shards are ticked
+ * on the calling thread and no pool is started at all. Not thread safe; the
+ * store must not be changed while a tick is running.
+ */
+public class ShardedScheduler {
+
+    /** Receives the events of a tick, on the thread calling the scheduler */
+    public interface Listener {
+        /**
+         * @param store the store of the creature
+         * @param index the index of the creature that died
+         */
+        void died(CreatureStore store, int index);
+    }
+
+    private final CreatureStore store;
+    private final Shard[] shards;
+    private final ArrayList<Shard> tasks = new ArrayList<Shard>();
+    /** null if the shards are run on the calling thread */
+    private ExecutorService pool;
+    private Listener listener;
+
+    /** A contiguous range of creatures and the events raised by them */
+    private class Shard implements Callable<Void> {
+
+        int from;
+        int to;
+        /** The number of ticks to advance, 1 for a plain tick */
+        long ticks;
+        final IntArray died = new IntArray();
+        final CreatureStore.Scratch scratch = new CreatureStore.Scratch();
+
+        @Override
+        public Void call() {
+            died.clear();
+            if (ticks == 1) {
+                store.tick(from, to, died);
+            } else {
+                store.fastForward(from, to, ticks, died, scratch);
+            }
+            return null;
+        }
+
+    }
+
+    /**
+     * @param store the creatures to advance
+     * @param threads the number of threads to use, 0 for one per available
+     *            processor; 1 runs everything on the calling thread
+     */
+    public ShardedScheduler(CreatureStore store, int threads) {
+        this.store = store;
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        shards = new Shard[threads];
+        for (int i = 0; i < threads; i++) {
+            shards[i] = new Shard();
+        }
+        if (threads > 1) {
+            pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private int count;
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "Simulation-" + count++);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**
+     * @param listener receives the events of the following ticks; may be null
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return the number of threads the creatures are split among
+     */
+    public int getThreadCount() {
+        return shards.length;
+    }
+
+    /**
+     * Advance all creatures by one tick, see {@link CreatureStore#tick()}.
+     */
+    public void tick() {
+        run(1);
+    }
+
+    /**
+     * Advance all creatures by a number of ticks at once, see
+     * {@link CreatureStore#fastForward(long)}.
+     *
+     * @param ticks the number of ticks to advance
+     */
+    public void fastForward(long ticks) {
+        if (ticks > 0) {
+            run(ticks);
+        }
+    }
+
+    private void run(long ticks) {
+        // the submitted actions are few, apply them before splitting
+        store.applyPending();
+
+        // a handful of creatures is not worth handing to another thread
+        final int size = store.size();
+        final int count = Math.max(1, Math.min(shards.length, size / 64));
+        tasks.clear();
+        for (int i = 0; i < count; i++) {
+            final Shard shard = shards[i];
+            shard.from = (int) ((long) size * i / count);
+            shard.to = (int) ((long) size * (i + 1) / count);
+            shard.ticks = ticks;
+            tasks.add(shard);
+        }
+
+        if (pool == null || count == 1) {
+            for (int i = 0; i < count; i++) {
+                shards[i].call();
+            }
+        } else {
+            join(invokeAll());
+        }
+
+        if (listener != null) {
+            for (int i = 0; i < count; i++) {
+                final IntArray died = shards[i].died;
+                for (int j = 0; j < died.size; j++) {
+                    listener.died(store, died.get(j));
+                }
+            }
+        }
+    }
+
+    private List<Future<Void>> invokeAll() {
+        try {
+            return pool.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GdxRuntimeException("Interrupted while ticking the creatures", e);
+        }
+    }
+
+    private static void join(List<Future<Void>> futures) {
+        // the futures are done already, invokeAll() waited for them
+        for (int i = 0, n = futures.size(); i < n; i++) {
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GdxRuntimeException("Interrupted while ticking the creatures", e);
+            } catch (ExecutionException e) {
+                throw new GdxRuntimeException("Ticking the creatures failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Stop the worker threads. The scheduler must not be used afterwards.
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+}
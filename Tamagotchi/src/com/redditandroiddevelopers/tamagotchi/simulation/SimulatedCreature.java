@@ -0,0 +1,98 @@
+package com.redditandroiddevelopers.tamagotchi.simulation;
+
+import com.redditandroiddevelopers.tamagotchi.model.Creature;
+import com.redditandroiddevelopers.tamagotchi.model.CreatureEvolution;
+import com.redditandroiddevelopers.tamagotchi.model.CreatureRaiseType;
+import com.redditandroiddevelopers.tamagotchi.model.CreatureState;
+
+/**
+ * A creature taking part in the {@link NeedsSimulation}: its state, the
+ * limits of its evolution and the simulation bookkeeping.
+ *
+ * Objects are public with no getters/setters for performance
+ */
+public class SimulatedCreature {
+
+    /** The maximum of every stat of the default evolution */
+    private static final int DEFAULT_MAX = 100;
+
+    /**
+     * The state as of when the creature was added to or removed from a
+     * {@link NeedsSimulation}; while simulated, the simulation has the
+     * current state
+     */
+    public final CreatureState state;
+    /** Caps the stats of {@link #state} */
+    public final CreatureEvolution limits;
+    /**
+     * The multiplier of the raise type in thousandths, so the rules only use
+     * integer arithmetic
+     */
+    public final int rate;
+    /** The number of ticks simulated for this creature */
+    public long age;
+    /** The number of submitted actions, indexed by their ordinal */
+    final int[] pending = new int[CareAction.values().length];
+    /**
+     * The index of the creature in the store of the {@link NeedsSimulation}
+     * advancing it, -1 if none
+     */
+    int index = -1;
+
+    /**
+     * @param state the state to simulate, its raise type must be set
+     * @param limits the evolution the creature is in
+     */
+    public SimulatedCreature(CreatureState state, CreatureEvolution limits) {
+        this.state = state;
+        this.limits = limits;
+        rate = toRate(state.raiseType.multiplier);
+    }
+
+    /**
+     * @param multiplier the multiplier of a raise type
+     * @return the multiplier in thousandths
+     */
+    static int toRate(double multiplier) {
+        return (int) Math.round(multiplier * 1000);
+    }
+
+    /**
+     * @return true if the creature has died; its state does not change
+     *         anymore
+     */
+    public boolean isDead() {
+        return state.health <= 0;
+    }
+
+    /**
+     * Create a healthy, fed and happy default creature, until creatures are
+     * created by the player and persisted.
+     *
+     * @return a new creature
+     */
+    public static SimulatedCreature createDefault() {
+        final CreatureRaiseType raiseType = new CreatureRaiseType();
+        raiseType.name = "Default";
+        raiseType.multiplier = 1;
+
+        final CreatureEvolution limits = new CreatureEvolution();
+        limits.name = "Default";
+        limits.maxHealth = DEFAULT_MAX;
+        limits.maxBowel = DEFAULT_MAX;
+        limits.maxDiscipline = DEFAULT_MAX;
+        limits.maxHunger = DEFAULT_MAX;
+        limits.maxHappy = DEFAULT_MAX;
+        limits.maxExperience = DEFAULT_MAX;
+
+        final CreatureState state = new CreatureState();
+        state.creature = Creature.createDefaultCreature();
+        limits.type = state.creature.type;
+        state.raiseType = raiseType;
+        state.health = limits.maxHealth;
+        state.happy = limits.maxHappy;
+        state.discipline = limits.maxDiscipline / 2;
+        return new SimulatedCreature(state, limits);
+    }
+
+}
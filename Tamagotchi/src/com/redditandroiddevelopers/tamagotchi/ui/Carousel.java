@@ -0,0 +1,275 @@
+package com.redditandroiddevelopers.tamagotchi.ui;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.ui.Image;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * A horizontal carousel the player swipes through to select an item. The
+ * selected item sits in the middle at full size, its neighbours are scaled
+ * down and rise along a curve towards the edges. The carousel is virtualized:
+ * only enough images for the visible items exist, and they are recycled as
+ * items scroll in and out of view, so the number of items is not limited.
+ * After a swipe, the carousel keeps gliding and snaps to the nearest item in
+ * the logic steps of the screen; the items are drawn between the positions of
+ * the last two steps. Neither dragging nor gliding allocates.
+ */
+public class Carousel extends Group implements Steppable {
+
+    /** Gliding speed decays by a factor of e^-FRICTION per second */
+    private static final float FRICTION = 4;
+    /** Release speed in items per second below which the carousel snaps */
+    private static final float MIN_FLING_VELOCITY = 1;
+    /** How quickly the carousel snaps to an item, per second */
+    private static final float SNAP_SPEED = 12;
+    private static final float SNAP_EPSILON = 0.001f;
+    /** Weight of the newest drag movement in the velocity estimate */
+    private static final float VELOCITY_SMOOTHING = 0.5f;
+    /** Time in nanoseconds after which a resting finger does not fling */
+    private static final long FLING_TIMEOUT = 100000000L;
+
+    private final CarouselAdapter adapter;
+    /** Distance between the centers of two items */
+    private final float spacing;
+    /** The scale of the items next to the selected one */
+    private final float sideScale;
+
+    private final Image[] slots;
+    /** The index of the item each slot shows, -1 if none */
+    private final int[] slotItems;
+
+    /** Y of the item centers, indexed by their x plus {@link #curveOffset} */
+    private final float[] curve;
+    private final int curveOffset;
+
+    /** The item in the middle; fractions are between two items */
+    private float scroll;
+    /** The scroll of the previous step, drawing interpolates from there */
+    private float previousScroll;
+    /** Items per second, while gliding */
+    private float velocity;
+    private int dragPointer = -1;
+    private float lastDragX;
+    private long lastDragTime;
+    private boolean moving;
+
+    /**
+     * @param name the name of the actor
+     * @param adapter supplies the items
+     * @param width the width of the carousel
+     * @param height the height of the carousel
+     * @param spacing the distance between the centers of two items
+     * @param sideScale the scale of the items next to the selected one
+     */
+    public Carousel(String name, CarouselAdapter adapter, float width, float height,
+            float spacing, float sideScale) {
+        super(name);
+        this.adapter = adapter;
+        this.width = width;
+        this.height = height;
+        this.spacing = spacing;
+        this.sideScale = sideScale;
+
+        // enough slots for every item placeItems() may consider visible
+        final int slotCount = (int) Math.ceil(width / spacing) + 5;
+        slots = new Image[slotCount];
+        slotItems = new int[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            final Image slot = new Image();
+            slot.touchable = false;
+            slot.visible = false;
+            addActor(slot);
+            slots[i] = slot;
+            slotItems[i] = -1;
+        }
+
+        curveOffset = (int) Math.ceil(spacing);
+        curve = new float[(int) width + 2 * curveOffset + 1];
+        setCurve(0, width, 0);
+    }
+
+    /**
+     * Set the curve the item centers follow: flat between two marks, and
+     * rising linearly beyond them. The curve is sampled into a lookup table
+     * once, so placing items does not compute it.
+     *
+     * @param leftMark the x coordinate up to which items rise to the left
+     * @param rightMark the x coordinate from which items rise to the right
+     * @param slope how much the items rise per unit beyond the marks
+     */
+    public void setCurve(float leftMark, float rightMark, float slope) {
+        final float centerY = height / 2;
+        for (int i = 0; i < curve.length; i++) {
+            final float x = i - curveOffset;
+            if (x < leftMark) {
+                curve[i] = centerY + slope * (leftMark - x);
+            } else if (x > rightMark) {
+                curve[i] = centerY + slope * (x - rightMark);
+            } else {
+                curve[i] = centerY;
+            }
+        }
+        moving = true;
+    }
+
+    /**
+     * @return the index of the item in the middle
+     */
+    public int getSelectedIndex() {
+        return MathUtils.clamp(Math.round(scroll), 0, Math.max(0, adapter.getCount() - 1));
+    }
+
+    /**
+     * Jump to an item without gliding.
+     *
+     * @param index the index of the item
+     */
+    public void setSelectedIndex(int index) {
+        scroll = index;
+        previousScroll = index;
+        velocity = 0;
+        moving = true;
+    }
+
+    /**
+     * @return true while the items move, i.e. the carousel needs to be drawn
+     *         continuously
+     */
+    public boolean isMoving() {
+        return moving || dragPointer >= 0;
+    }
+
+    @Override
+    public void step(float stepTime) {
+        previousScroll = scroll;
+        if (dragPointer < 0 && moving) {
+            glide(stepTime);
+        }
+    }
+
+    @Override
+    public void interpolate(float alpha) {
+        placeItems(previousScroll + (scroll - previousScroll) * alpha);
+    }
+
+    private void glide(float delta) {
+        final float maxScroll = Math.max(0, adapter.getCount() - 1);
+        if (Math.abs(velocity) >= MIN_FLING_VELOCITY) {
+            scroll += velocity * delta;
+            velocity *= (float) Math.exp(-FRICTION * delta);
+            if (scroll < 0 || scroll > maxScroll) {
+                // stop at the ends
+                scroll = MathUtils.clamp(scroll, 0, maxScroll);
+                velocity = 0;
+            }
+            return;
+        }
+        velocity = 0;
+        final float target = MathUtils.clamp(Math.round(scroll), 0, maxScroll);
+        final float distance = target - scroll;
+        if (Math.abs(distance) < SNAP_EPSILON) {
+            scroll = target;
+            moving = false;
+        } else {
+            scroll += distance * Math.min(1, SNAP_SPEED * delta);
+        }
+    }
+
+    /**
+     * Bind the visible items to slots and move them into place.
+     *
+     * @param scroll the item in the middle
+     */
+    private void placeItems(float scroll) {
+        final int count = adapter.getCount();
+        final float halfVisible = width / 2 / spacing + 1;
+        final int first = Math.max(0, (int) Math.floor(scroll - halfVisible));
+        final int last = Math.min(count - 1, (int) Math.ceil(scroll + halfVisible));
+
+        for (int i = 0; i < slots.length; i++) {
+            final int item = slotItems[i];
+            if (item >= 0 && (item < first || item > last)) {
+                // scrolled out of view, free the slot for another item
+                slots[i].visible = false;
+                slotItems[i] = -1;
+            }
+        }
+
+        for (int item = first; item <= last; item++) {
+            // an item always uses the same slot while it is visible
+            final int i = item % slots.length;
+            final Image slot = slots[i];
+            if (slotItems[i] != item) {
+                slotItems[i] = item;
+                slot.setRegion(adapter.getRegion(item));
+                slot.width = slot.getRegion().getRegionWidth();
+                slot.height = slot.getRegion().getRegionHeight();
+                slot.originX = slot.width / 2;
+                slot.originY = slot.height / 2;
+                slot.invalidate();
+                slot.visible = true;
+            }
+            final float offset = item - scroll;
+            final float centerX = width / 2 + offset * spacing;
+            final int curveIndex = MathUtils.clamp((int) centerX + curveOffset, 0,
+                    curve.length - 1);
+            slot.x = centerX - slot.width / 2;
+            slot.y = curve[curveIndex] - slot.height / 2;
+            slot.scaleX = slot.scaleY = 1 + (sideScale - 1) * Math.min(1, Math.abs(offset));
+        }
+    }
+
+    @Override
+    public boolean touchDown(float x, float y, int pointer) {
+        if (dragPointer >= 0) {
+            return false;
+        }
+        dragPointer = pointer;
+        lastDragX = x;
+        lastDragTime = TimeUtils.nanoTime();
+        velocity = 0;
+        moving = true;
+        return true;
+    }
+
+    @Override
+    public void touchDragged(float x, float y, int pointer) {
+        if (pointer != dragPointer) {
+            return;
+        }
+        final long now = TimeUtils.nanoTime();
+        final float deltaItems = (lastDragX - x) / spacing;
+        final float deltaTime = (now - lastDragTime) / 1000000000f;
+        scroll += deltaItems;
+        // the items follow the finger, not the steps
+        previousScroll = scroll;
+        if (deltaTime > 0) {
+            velocity += (deltaItems / deltaTime - velocity) * VELOCITY_SMOOTHING;
+        }
+        lastDragX = x;
+        lastDragTime = now;
+    }
+
+    @Override
+    public void touchUp(float x, float y, int pointer) {
+        if (pointer != dragPointer) {
+            return;
+        }
+        scroll += (lastDragX - x) / spacing;
+        previousScroll = scroll;
+        if (TimeUtils.nanoTime() - lastDragTime > FLING_TIMEOUT) {
+            // the finger rested before it was lifted
+            velocity = 0;
+        }
+        dragPointer = -1;
+    }
+
+    @Override
+    public Actor hit(float x, float y) {
+        // the whole area can be swiped, the items themselves are not touched
+        return x > 0 && x < width && y > 0 && y < height ? this : null;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.redditandroiddevelopers.tamagotchi.ui;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * Supplies the items of a {@link Carousel}. The carousel only asks for the
+ * items it is about to show, so there may be any number of them.
+ */
+public interface CarouselAdapter {
+    /**
+     * @return the number of items
+     */
+    int getCount();
+
+    /**
+     * @param index the index of the item, from 0 to {@link #getCount()}
+     *            (exclusive)
+     * @return the image of the item
+     */
+    TextureRegion getRegion(int index);
+}
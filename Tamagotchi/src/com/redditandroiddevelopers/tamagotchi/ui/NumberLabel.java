@@ -0,0 +1,131 @@
+package com.redditandroiddevelopers.tamagotchi.ui;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+
+import java.nio.CharBuffer;
+
+/**
+ * A HUD label showing a number between a fixed prefix and suffix, e.g.
+ * "FPS: 60" or "Hunger: 80%". Unlike a Label, updating the value does not
+ * allocate: the text is formatted into a reusable character buffer and the
+ * glyphs are only laid out again when the displayed value actually changes,
+ * so it is safe to call {@link #setValue(int)} every frame.
+ */
+public class NumberLabel extends Actor {
+
+    /** Enough room for the digits and sign of any int */
+    private static final int MAX_DIGITS = 11;
+
+    private final BitmapFontCache cache;
+    private final char[] chars;
+    /** Wraps {@link #chars}, so the text can be passed as a CharSequence */
+    private final CharBuffer text;
+    private final int prefixLength;
+    private final String suffix;
+    private int length;
+
+    private int value;
+    private boolean hasValue;
+    private float cacheX;
+    private float cacheY;
+
+    /**
+     * @param name the name of the actor
+     * @param font the font to draw with
+     * @param color the color of the text
+     * @param prefix the text in front of the number
+     * @param suffix the text after the number
+     */
+    public NumberLabel(String name, BitmapFont font, Color color, String prefix, String suffix) {
+        super(name);
+        cache = new BitmapFontCache(font);
+        cache.setColor(color);
+        chars = new char[prefix.length() + MAX_DIGITS + suffix.length()];
+        text = CharBuffer.wrap(chars);
+        prefix.getChars(0, prefix.length(), chars, 0);
+        prefixLength = prefix.length();
+        this.suffix = suffix;
+        height = font.getCapHeight();
+    }
+
+    /**
+     * Set the displayed number. Does nothing if the number did not change.
+     *
+     * @param value the number to display
+     */
+    public void setValue(int value) {
+        if (hasValue && value == this.value) {
+            return;
+        }
+        this.value = value;
+        hasValue = true;
+        length = prefixLength + formatInt(value, chars, prefixLength);
+        suffix.getChars(0, suffix.length(), chars, length);
+        length += suffix.length();
+
+        // lay out with the baseline at the bottom of the actor
+        width = cache.setText(text, 0, cache.getFont().getCapHeight(), 0, length).width;
+        cacheX = 0;
+        cacheY = 0;
+    }
+
+    /**
+     * @return the displayed number
+     */
+    public int getValue() {
+        return value;
+    }
+
+    @Override
+    public void draw(SpriteBatch batch, float parentAlpha) {
+        if (!hasValue) {
+            return;
+        }
+        if (x != cacheX || y != cacheY) {
+            cache.setPosition(x, y);
+            cacheX = x;
+            cacheY = y;
+        }
+        cache.draw(batch, color.a * parentAlpha);
+    }
+
+    @Override
+    public Actor hit(float x, float y) {
+        // labels never take input
+        return null;
+    }
+
+    /**
+     * Write the decimal representation of a number into a char array.
+     *
+     * @return the number of characters written
+     */
+    private static int formatInt(int value, char[] chars, int offset) {
+        // work with negative numbers, so Integer.MIN_VALUE does not overflow
+        final boolean negative = value < 0;
+        if (!negative) {
+            value = -value;
+        }
+        int digits = 0;
+        int v = value;
+        do {
+            digits++;
+            v /= 10;
+        } while (v != 0);
+        final int length = negative ? digits + 1 : digits;
+        int i = offset + length;
+        do {
+            chars[--i] = (char) ('0' - value % 10);
+            value /= 10;
+        } while (value != 0);
+        if (negative) {
+            chars[offset] = '-';
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.redditandroiddevelopers.tamagotchi.ui;
+
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Describes a burst of particles emitted by a {@link ParticleLayer}, e.g. the
+ * crumbs when feeding the creature. Every particle starts at the emission
+ * point with a random speed and direction within the configured ranges, is
+ * pulled down by gravity, spins, scales and fades out over its lifetime.
+ * Angles are in degrees, distances in stage units and times in seconds.
+ */
+public class ParticleBurst {
+
+    public final TextureRegion region;
+
+    /** Particles emitted per burst, before the quality scaling */
+    public int count = 20;
+    public float minLife = 0.5f;
+    public float maxLife = 1;
+    public float minSpeed = 50;
+    public float maxSpeed = 150;
+    /** Direction of the particles, counter-clockwise from the positive x axis */
+    public float minAngle = 0;
+    public float maxAngle = 360;
+    /** Acceleration along the y axis; negative values pull down */
+    public float gravity = 0;
+    public float minSpin = 0;
+    public float maxSpin = 0;
+    public float startScale = 1;
+    public float endScale = 1;
+    /** Whether the particles fade out over their lifetime */
+    public boolean fade = true;
+
+    /**
+     * @param atlas the atlas containing the particle image
+     * @param regionName the name of the particle image in the atlas
+     */
+    public ParticleBurst(TextureAtlas atlas, String regionName) {
+        region = atlas.findRegion(regionName);
+        if (region == null) {
+            throw new GdxRuntimeException("No particle region named " + regionName);
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+package com.redditandroiddevelopers.tamagotchi.ui;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+
+/**
+ * An actor simulating and drawing the particles of all effects of a screen.
+ * Particles are not actors: their state lives in primitive arrays of a fixed
+ * capacity, so neither emitting nor updating them allocates, and all of them
+ * are drawn in a single pass through the batch of the stage. Particles that
+ * do not fit anymore are dropped. They move in the logic steps of the screen
+ * and are drawn between their positions of the last two steps.
+ */
+public class ParticleLayer extends Actor implements Steppable {
+
+    private final int capacity;
+    private int live;
+
+    private final float[] positionX;
+    private final float[] positionY;
+    private final float[] velocityX;
+    private final float[] velocityY;
+    private final float[] gravity;
+    private final float[] rotation;
+    /** The state of the previous step, drawing interpolates from there */
+    private final float[] previousX;
+    private final float[] previousY;
+    private final float[] previousRotation;
+    private final float[] previousAge;
+    private final float[] spin;
+    private final float[] startScale;
+    private final float[] endScale;
+    private final float[] age;
+    private final float[] life;
+    private final boolean[] fade;
+    private final TextureRegion[] regions;
+    private float stepAlpha = 1;
+
+    /** Factor for the number of particles emitted per burst */
+    public float density = 1;
+
+    /**
+     * @param name the name of the actor
+     * @param capacity the maximum number of live particles
+     */
+    public ParticleLayer(String name, int capacity) {
+        super(name);
+        this.capacity = capacity;
+        positionX = new float[capacity];
+        positionY = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        gravity = new float[capacity];
+        rotation = new float[capacity];
+        previousX = new float[capacity];
+        previousY = new float[capacity];
+        previousRotation = new float[capacity];
+        previousAge = new float[capacity];
+        spin = new float[capacity];
+        startScale = new float[capacity];
+        endScale = new float[capacity];
+        age = new float[capacity];
+        life = new float[capacity];
+        fade = new boolean[capacity];
+        regions = new TextureRegion[capacity];
+    }
+
+    /**
+     * Emit a burst of particles.
+     *
+     * @param burst the kind of particles to emit
+     * @param originX the x coordinate to emit at, in the coordinates of the
+     *            parent of this actor
+     * @param originY the y coordinate to emit at
+     */
+    public void emit(ParticleBurst burst, float originX, float originY) {
+        final int count = Math.min(Math.round(burst.count * density), capacity - live);
+        for (int n = 0; n < count; n++) {
+            final int i = live++;
+            final float angle = MathUtils.random(burst.minAngle, burst.maxAngle);
+            final float speed = MathUtils.random(burst.minSpeed, burst.maxSpeed);
+            positionX[i] = originX;
+            positionY[i] = originY;
+            velocityX[i] = MathUtils.cosDeg(angle) * speed;
+            velocityY[i] = MathUtils.sinDeg(angle) * speed;
+            gravity[i] = burst.gravity;
+            rotation[i] = MathUtils.random(360f);
+            spin[i] = MathUtils.random(burst.minSpin, burst.maxSpin);
+            startScale[i] = burst.startScale;
+            endScale[i] = burst.endScale;
+            age[i] = 0;
+            life[i] = MathUtils.random(burst.minLife, burst.maxLife);
+            // a new particle has no motion to interpolate yet
+            previousX[i] = originX;
+            previousY[i] = originY;
+            previousRotation[i] = rotation[i];
+            previousAge[i] = 0;
+            fade[i] = burst.fade;
+            regions[i] = burst.region;
+        }
+    }
+
+    /**
+     * @return the number of live particles
+     */
+    public int getLiveCount() {
+        return live;
+    }
+
+    /**
+     * Remove all particles.
+     */
+    public void clear() {
+        for (int i = 0; i < live; i++) {
+            regions[i] = null;
+        }
+        live = 0;
+    }
+
+    @Override
+    public void step(float stepTime) {
+        int i = 0;
+        while (i < live) {
+            previousX[i] = positionX[i];
+            previousY[i] = positionY[i];
+            previousRotation[i] = rotation[i];
+            previousAge[i] = age[i];
+            age[i] += stepTime;
+            if (age[i] >= life[i]) {
+                // move the last particle into the gap to keep them packed
+                live--;
+                move(live, i);
+                regions[live] = null;
+                continue;
+            }
+            velocityY[i] += gravity[i] * stepTime;
+            positionX[i] += velocityX[i] * stepTime;
+            positionY[i] += velocityY[i] * stepTime;
+            rotation[i] += spin[i] * stepTime;
+            i++;
+        }
+    }
+
+    @Override
+    public void interpolate(float alpha) {
+        stepAlpha = alpha;
+    }
+
+    private void move(int from, int to) {
+        positionX[to] = positionX[from];
+        positionY[to] = positionY[from];
+        velocityX[to] = velocityX[from];
+        velocityY[to] = velocityY[from];
+        gravity[to] = gravity[from];
+        rotation[to] = rotation[from];
+        previousX[to] = previousX[from];
+        previousY[to] = previousY[from];
+        previousRotation[to] = previousRotation[from];
+        previousAge[to] = previousAge[from];
+        spin[to] = spin[from];
+        startScale[to] = startScale[from];
+        endScale[to] = endScale[from];
+        age[to] = age[from];
+        life[to] = life[from];
+        fade[to] = fade[from];
+        regions[to] = regions[from];
+    }
+
+    @Override
+    public void draw(SpriteBatch batch, float parentAlpha) {
+        final float alpha = color.a * parentAlpha;
+        final float t = stepAlpha;
+        for (int i = 0; i < live; i++) {
+            final float progress = (previousAge[i] + (age[i] - previousAge[i]) * t) / life[i];
+            final float scale = startScale[i] + (endScale[i] - startScale[i]) * progress;
+            batch.setColor(color.r, color.g, color.b, fade[i] ? alpha * (1 - progress) : alpha);
+            final TextureRegion region = regions[i];
+            final float width = region.getRegionWidth();
+            final float height = region.getRegionHeight();
+            final float particleX = previousX[i] + (positionX[i] - previousX[i]) * t;
+            final float particleY = previousY[i] + (positionY[i] - previousY[i]) * t;
+            final float particleRotation = previousRotation[i]
+                    + (rotation[i] - previousRotation[i]) * t;
+            batch.draw(region, x + particleX - width / 2, y + particleY - height / 2,
+                    width / 2, height / 2, width, height, scale, scale, particleRotation);
+        }
+        batch.setColor(1, 1, 1, 1);
+    }
+
+    @Override
+    public Actor hit(float x, float y) {
+        // particles never take input
+        return null;
+    }
+
+}
@@ -0,0 +1,226 @@
+package com.redditandroiddevelopers.tamagotchi.ui;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL10;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.util.ArrayList;
+
+/**
+ * An actor for background layers that never change, like the landscape of the
+ * main game. Instead of drawing one image actor per texture region each frame,
+ * the regions are uploaded once into a {@link SpriteCache} and drawn with a
+ * single call. Where frame buffers are available (GL20), the cached regions
+ * are additionally flattened into one texture, so overlapping regions cost a
+ * single blended quad instead of one per region.
+ * <p>
+ * The layer can be shifted by {@link #offsetX} and {@link #offsetY}, e.g. for
+ * parallax scrolling, without rebuilding the cache. Call {@link #invalidate()}
+ * whenever the regions or the screen size change.
+ */
+public class StaticLayer extends Actor implements Disposable {
+
+    private final ArrayList<TextureRegion> regions = new ArrayList<TextureRegion>();
+    /** x and y of every region, relative to the layer */
+    private final ArrayList<float[]> positions = new ArrayList<float[]>();
+
+    /** True if all regions are opaque and can be drawn without blending */
+    private final boolean opaque;
+
+    /** Offset applied when drawing, in stage units */
+    public float offsetX;
+    public float offsetY;
+
+    private SpriteCache cache;
+    private int cacheSize;
+    private int cacheId = -1;
+    private FrameBuffer frameBuffer;
+    private TextureRegion flattened;
+    private boolean dirty = true;
+
+    private final Matrix4 transform = new Matrix4();
+
+    /**
+     * @param name the name of the actor
+     * @param opaque true if none of the regions have transparent pixels
+     */
+    public StaticLayer(String name, boolean opaque) {
+        super(name);
+        this.opaque = opaque;
+    }
+
+    /**
+     * Add a texture region to the layer. The size of the layer grows to
+     * include all regions.
+     *
+     * @param region the region to draw
+     * @param x the x coordinate of the region within the layer
+     * @param y the y coordinate of the region within the layer
+     */
+    public void add(TextureRegion region, float x, float y) {
+        regions.add(region);
+        positions.add(new float[] {
+                x, y
+        });
+        width = Math.max(width, x + region.getRegionWidth());
+        height = Math.max(height, y + region.getRegionHeight());
+        invalidate();
+    }
+
+    /**
+     * Remove all texture regions from the layer.
+     */
+    public void clear() {
+        regions.clear();
+        positions.clear();
+        width = 0;
+        height = 0;
+        invalidate();
+    }
+
+    /**
+     * Rebuild the cached geometry on the next draw.
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    @Override
+    public void draw(SpriteBatch batch, float parentAlpha) {
+        if (regions.isEmpty()) {
+            return;
+        }
+        if (dirty) {
+            rebuild(batch);
+        }
+
+        if (flattened != null) {
+            if (opaque) {
+                batch.disableBlending();
+            } else {
+                // the frame buffer holds premultiplied alpha
+                batch.setBlendFunction(GL10.GL_ONE, GL10.GL_ONE_MINUS_SRC_ALPHA);
+            }
+            batch.draw(flattened, x + offsetX, y + offsetY, width, height);
+            if (opaque) {
+                batch.enableBlending();
+            } else {
+                batch.setBlendFunction(GL10.GL_SRC_ALPHA, GL10.GL_ONE_MINUS_SRC_ALPHA);
+            }
+            return;
+        }
+
+        // the sprite cache draws on its own, so hand over the GL state
+        batch.end();
+        transform.set(batch.getTransformMatrix()).translate(x + offsetX, y + offsetY, 0);
+        cache.setProjectionMatrix(batch.getProjectionMatrix());
+        cache.setTransformMatrix(transform);
+        if (!opaque) {
+            Gdx.gl.glEnable(GL10.GL_BLEND);
+            Gdx.gl.glBlendFunc(GL10.GL_SRC_ALPHA, GL10.GL_ONE_MINUS_SRC_ALPHA);
+        }
+        cache.begin();
+        cache.draw(cacheId);
+        cache.end();
+        if (!opaque) {
+            Gdx.gl.glDisable(GL10.GL_BLEND);
+        }
+        batch.begin();
+    }
+
+    private void rebuild(SpriteBatch batch) {
+        if (cache == null || cacheSize < regions.size()) {
+            if (cache != null) {
+                cache.dispose();
+            }
+            cacheSize = regions.size();
+            cache = new SpriteCache(cacheSize, false);
+        }
+        cache.clear();
+        cache.beginCache();
+        for (int i = 0; i < regions.size(); i++) {
+            final float[] position = positions.get(i);
+            cache.add(regions.get(i), position[0], position[1]);
+        }
+        cacheId = cache.endCache();
+        dirty = false;
+
+        if (Gdx.graphics.isGL20Available()) {
+            flatten(batch);
+        }
+    }
+
+    /**
+     * Render the cached regions into a frame buffer, at the resolution they
+     * end up on screen.
+     */
+    private void flatten(SpriteBatch batch) {
+        disposeFrameBuffer();
+        final Matrix4 projection = batch.getProjectionMatrix();
+        // the stage projection maps stage units to [-1, 1]
+        final int fboWidth = Math.max(1, Math.round(width * projection.val[Matrix4.M00]
+                * Gdx.graphics.getWidth() / 2));
+        final int fboHeight = Math.max(1, Math.round(height * projection.val[Matrix4.M11]
+                * Gdx.graphics.getHeight() / 2));
+        frameBuffer = new FrameBuffer(opaque ? Format.RGB565 : Format.RGBA8888, fboWidth,
+                fboHeight, false);
+
+        batch.end();
+        frameBuffer.begin();
+        Gdx.gl.glClearColor(0, 0, 0, 0);
+        Gdx.gl.glClear(GL10.GL_COLOR_BUFFER_BIT);
+        cache.setProjectionMatrix(new Matrix4().setToOrtho2D(0, 0, width, height));
+        cache.setTransformMatrix(transform.idt());
+        if (!opaque) {
+            Gdx.gl.glEnable(GL20.GL_BLEND);
+            Gdx.gl20.glBlendFuncSeparate(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA,
+                    GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        }
+        cache.begin();
+        cache.draw(cacheId);
+        cache.end();
+        if (!opaque) {
+            Gdx.gl.glDisable(GL20.GL_BLEND);
+        }
+        frameBuffer.end();
+        batch.begin();
+
+        final Texture texture = frameBuffer.getColorBufferTexture();
+        flattened = new TextureRegion(texture);
+        // frame buffers are upside down
+        flattened.flip(false, true);
+    }
+
+    private void disposeFrameBuffer() {
+        if (frameBuffer != null) {
+            frameBuffer.dispose();
+            frameBuffer = null;
+            flattened = null;
+        }
+    }
+
+    @Override
+    public Actor hit(float x, float y) {
+        // backgrounds never take input
+        return null;
+    }
+
+    @Override
+    public void dispose() {
+        disposeFrameBuffer();
+        if (cache != null) {
+            cache.dispose();
+            cache = null;
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.redditandroiddevelopers.tamagotchi.ui;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+import com.redditandroiddevelopers.tamagotchi.QualityTier;
+import com.redditandroiddevelopers.tamagotchi.utils.FrameStats;
+
+/**
+ * A debug overlay showing the render statistics of the current screen in the
+ * top left corner. It is drawn on top of everything with its own projection,
+ * in screen pixels, so it does not depend on the stage or the camera of the
+ * screen. The text is only laid out a few times per second.
+ */
+public class StatsOverlay implements Disposable {
+
+    /** Time in seconds between updates of the text */
+    private static final float REFRESH_INTERVAL = 0.25f;
+    private static final float MARGIN = 5;
+
+    private final BitmapFont font;
+    private final BitmapFontCache cache;
+    private final StringBuilder text = new StringBuilder(256);
+    private final Matrix4 projection = new Matrix4();
+    private float sinceRefresh = REFRESH_INTERVAL;
+
+    public StatsOverlay() {
+        // the built-in font is always available, even before any asset loaded
+        font = new BitmapFont();
+        cache = new BitmapFontCache(font);
+        cache.setColor(Color.RED);
+    }
+
+    /**
+     * Draw the statistics of the latest frames.
+     *
+     * @param batch the batch to draw with; must not be drawing yet
+     * @param stats the statistics to show
+     * @param tier the current quality tier
+     * @param delta time in seconds since the last frame
+     */
+    public void draw(SpriteBatch batch, FrameStats stats, QualityTier tier, float delta) {
+        sinceRefresh += delta;
+        if (sinceRefresh >= REFRESH_INTERVAL && stats.getCount() > 0) {
+            sinceRefresh = 0;
+            refresh(stats, tier);
+        }
+
+        final int width = Gdx.graphics.getWidth();
+        final int height = Gdx.graphics.getHeight();
+        projection.setToOrtho2D(0, 0, width, height);
+        batch.setProjectionMatrix(projection);
+        batch.begin();
+        cache.setPosition(MARGIN, height - MARGIN);
+        cache.draw(batch);
+        batch.end();
+    }
+
+    private void refresh(FrameStats stats, QualityTier tier) {
+        text.setLength(0);
+        text.append("FPS: ").append(Gdx.graphics.getFramesPerSecond());
+        text.append("\nframe: ").append(stats.getFrameNanos(0) / 1000).append(" us (avg ")
+                .append(stats.getAverageFrameNanos() / 1000).append(", max ")
+                .append(stats.getMaxFrameNanos() / 1000).append(')');
+        text.append("\nupdate: ").append(stats.getUpdateNanos(0) / 1000)
+                .append(" us, draw: ").append(stats.getDrawNanos(0) / 1000).append(" us");
+        text.append("\nrender calls: ").append(stats.getRenderCalls(0))
+                .append(", texture switches: ").append(stats.getTextureSwitches(0));
+        text.append("\nsprites: ").append(stats.getSprites(0));
+        text.append("\nheap: ").append(stats.getHeapBytes(0) / 1024).append(" KiB (")
+                .append(stats.getHeapDelta(0) >= 0 ? "+" : "")
+                .append(stats.getHeapDelta(0)).append(" B), GCs: ")
+                .append(stats.getGcCount());
+        text.append("\nquality: ").append(tier);
+        cache.setMultiLineText(text, 0, 0);
+    }
+
+    @Override
+    public void dispose() {
+        font.dispose();
+    }
+
+}
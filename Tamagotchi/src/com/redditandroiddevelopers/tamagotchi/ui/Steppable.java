@@ -0,0 +1,25 @@
+package com.redditandroiddevelopers.tamagotchi.ui;
+
+/**
+ * Something that moves in the fixed logic steps of its screen instead of by
+ * the time of each frame, so it behaves the same at any frame rate. Between
+ * two steps, it is drawn interpolated, which keeps the motion smooth even when
+ * frames are rendered more often than steps are run.
+ */
+public interface Steppable {
+    /**
+     * Advance by one logic step.
+     *
+     * @param stepTime the duration of a step in seconds, always the same
+     */
+    void step(float stepTime);
+
+    /**
+     * Prepare to be drawn at a point between the last two steps. Called once
+     * per frame, after the steps of that frame.
+     *
+     * @param alpha how far the frame is between the previous step (0) and the
+     *            latest one (1)
+     */
+    void interpolate(float alpha);
+}
@@ -0,0 +1,74 @@
+package com.redditandroiddevelopers.tamagotchi.utils;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.BitmapFontData;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.g2d.stbtt.TrueTypeFontFactory;
+import com.badlogic.gdx.graphics.glutils.FileTextureData;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets.FontAsset;
+
+/**
+ * Loads {@link FontAsset}s through the {@link FontCache}. A font that has not
+ * been baked yet is baked on the loader thread of the asset manager, so even
+ * the first start does not block rendering while glyphs are rasterized.
+ */
+public class CachedFontLoader extends
+        AsynchronousAssetLoader<BitmapFont, AssetLoaderParameters<BitmapFont>> {
+
+    private final FontCache cache;
+
+    private BitmapFontData fontData;
+    private FileTextureData textureData;
+
+    public CachedFontLoader(FontCache cache) {
+        super(new InternalFileHandleResolver());
+        this.cache = cache;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Array<AssetDescriptor> getDependencies(String fileName,
+            AssetLoaderParameters<BitmapFont> parameter) {
+        return null;
+    }
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName,
+            AssetLoaderParameters<BitmapFont> parameter) {
+        final FontAsset asset = FontAsset.forFileDescriptor(fileName);
+        if (asset == null) {
+            throw new GdxRuntimeException("Unknown font: " + fileName);
+        }
+        if (!cache.isBaked(asset)) {
+            cache.bake(asset);
+        }
+        fontData = new BitmapFontData(cache.getFontFile(asset), false);
+        final Pixmap pixmap = new Pixmap(cache.getImageFile(asset));
+        // the same format and filter as TrueTypeFontFactory
+        textureData = new FileTextureData(cache.getImageFile(asset), pixmap, Format.RGBA4444,
+                false);
+    }
+
+    @Override
+    public BitmapFont loadSync(AssetManager manager, String fileName,
+            AssetLoaderParameters<BitmapFont> parameter) {
+        final Texture texture = new Texture(textureData);
+        texture.setFilter(TrueTypeFontFactory.TTFF_DEFAULT_TEXTUREFILTER,
+                TrueTypeFontFactory.TTFF_DEFAULT_TEXTUREFILTER);
+        final BitmapFont font = new BitmapFont(fontData, new TextureRegion(texture), false);
+        fontData = null;
+        textureData = null;
+        return font;
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.redditandroiddevelopers.tamagotchi.utils;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL10;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Tints and desaturates everything drawn by the sprite batch, e.g. to darken
+ * the scene at night. The grading is done by the fragment shader of the batch
+ * while drawing, so it costs no extra pass. Only available with OpenGL ES 2.0.
+ * <p>
+ * The shader also takes the alpha channel from a separate alpha page where
+ * one is set with {@link #setAlphaPage(Texture)}, for compressed ETC1 pages,
+ * which have no alpha channel of their own.
+ */
+public class ColorGrading implements Disposable {
+
+    private static final String VERTEX_SHADER = "attribute vec4 "
+            + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+            + "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n"
+            + "attribute vec2 " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+            // the name SpriteBatch uploads the matrices of its default shader to
+            + "uniform mat4 u_projectionViewMatrix;\n"
+            + "varying vec4 v_color;\n"
+            + "varying vec2 v_texCoords;\n"
+            + "void main()\n"
+            + "{\n"
+            + "  v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n"
+            + "  v_texCoords = " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+            + "  gl_Position = u_projectionViewMatrix * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+            + "}\n";
+
+    // works on premultiplied alpha too, since both operations are linear
+    private static final String FRAGMENT_SHADER = "#ifdef GL_ES\n"
+            + "#define LOWP lowp\n"
+            + "precision mediump float;\n"
+            + "#else\n"
+            + "#define LOWP\n"
+            + "#endif\n"
+            + "varying LOWP vec4 v_color;\n"
+            + "varying vec2 v_texCoords;\n"
+            + "uniform sampler2D u_texture;\n"
+            + "uniform sampler2D u_alphaTexture;\n"
+            // 1 to take the alpha from the alpha page, 0 from the texture
+            + "uniform LOWP float u_alphaPage;\n"
+            + "uniform LOWP vec3 u_tint;\n"
+            + "uniform LOWP float u_saturation;\n"
+            + "void main()\n"
+            + "{\n"
+            + "  vec4 color = texture2D(u_texture, v_texCoords);\n"
+            + "  color.a = mix(color.a, texture2D(u_alphaTexture, v_texCoords).g, u_alphaPage);\n"
+            + "  color *= v_color;\n"
+            + "  float luminance = dot(color.rgb, vec3(0.299, 0.587, 0.114));\n"
+            + "  color.rgb = mix(vec3(luminance), color.rgb, u_saturation) * u_tint;\n"
+            + "  gl_FragColor = color;\n"
+            + "}\n";
+
+    /** The grading at full daylight */
+    private static final Color DAY_TINT = new Color(1, 1, 1, 1);
+    private static final float DAY_SATURATION = 1;
+    /** The grading in the middle of the night */
+    private static final Color NIGHT_TINT = new Color(0.45f, 0.5f, 0.8f, 1);
+    private static final float NIGHT_SATURATION = 0.5f;
+
+    /** The texture unit the alpha page is bound to */
+    private static final int ALPHA_TEXTURE_UNIT = 1;
+
+    /** Multiplied with the red, green and blue of every pixel */
+    public final Color tint = new Color(DAY_TINT);
+    /** 0 for grayscale, 1 for the original colors */
+    public float saturation = DAY_SATURATION;
+
+    private final ShaderProgram shader;
+
+    public ColorGrading() {
+        shader = new ShaderProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+        if (!shader.isCompiled()) {
+            throw new GdxRuntimeException("Cannot compile color grading shader: "
+                    + shader.getLog());
+        }
+    }
+
+    /**
+     * @return the shader to pass to the sprite batch as its default shader
+     */
+    public ShaderProgram getShader() {
+        return shader;
+    }
+
+    /**
+     * Grade for a time of day.
+     *
+     * @param daylight 0 in the middle of the night, 1 at full daylight
+     */
+    public void setDaylight(float daylight) {
+        tint.set(lerp(NIGHT_TINT.r, DAY_TINT.r, daylight),
+                lerp(NIGHT_TINT.g, DAY_TINT.g, daylight),
+                lerp(NIGHT_TINT.b, DAY_TINT.b, daylight), 1);
+        saturation = lerp(NIGHT_SATURATION, DAY_SATURATION, daylight);
+    }
+
+    private static float lerp(float from, float to, float progress) {
+        return from + (to - from) * progress;
+    }
+
+    /**
+     * Upload the grading to the shader. The shader must be bound, i.e. the
+     * batch must be drawing.
+     */
+    public void apply() {
+        shader.setUniformf("u_tint", tint.r, tint.g, tint.b);
+        shader.setUniformf("u_saturation", saturation);
+    }
+
+    /**
+     * Take the alpha channel of the following sprites from an alpha page. The
+     * shader must be bound, and the sprites batched so far must have been
+     * flushed.
+     *
+     * @param alphaPage the alpha page of the texture drawn, or null to use
+     *            the alpha channel of the texture itself
+     */
+    public void setAlphaPage(Texture alphaPage) {
+        if (alphaPage != null) {
+            alphaPage.bind(ALPHA_TEXTURE_UNIT);
+            // the batch binds its textures to the active unit
+            Gdx.gl.glActiveTexture(GL10.GL_TEXTURE0);
+        }
+        shader.setUniformi("u_alphaTexture", ALPHA_TEXTURE_UNIT);
+        shader.setUniformf("u_alphaPage", alphaPage != null ? 1 : 0);
+    }
+
+    @Override
+    public void dispose() {
+        shader.dispose();
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.redditandroiddevelopers.tamagotchi.utils;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.TextureAtlasLoader;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Array;
+import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+/**
+ * Loads texture atlases like {@link TextureAtlasLoader}, and also the alpha
+ * pages the asset pipeline writes next to compressed ETC1 pages with
+ * transparency. The alpha pages are dependencies of the atlas, so they are
+ * loaded and unloaded along with it, and can be looked up by the page they
+ * belong to with {@link #getAlphaPage(Texture)}.
+ */
+public class CompressedAtlasLoader extends TextureAtlasLoader {
+
+    private static final String ETC1_EXTENSION = ".etc1";
+
+    /** The page and alpha page file names of the atlases being loaded */
+    private final HashMap<String, ArrayList<String[]>> pendingAlphaPages =
+            new HashMap<String, ArrayList<String[]>>();
+    /**
+     * Only used on the rendering thread; weak, so pages of unloaded atlases
+     * do not stay reachable
+     */
+    private final WeakHashMap<Texture, Texture> alphaPages = new WeakHashMap<Texture, Texture>();
+
+    public CompressedAtlasLoader(FileHandleResolver resolver) {
+        super(resolver);
+    }
+
+    @Override
+    @SuppressWarnings({
+            "rawtypes", "unchecked"
+    })
+    public Array<AssetDescriptor> getDependencies(String fileName,
+            TextureAtlasParameter parameter) {
+        final Array<AssetDescriptor> dependencies = super.getDependencies(fileName, parameter);
+        final ArrayList<String[]> pages = new ArrayList<String[]>();
+        for (int i = 0, n = dependencies.size; i < n; i++) {
+            final AssetDescriptor pageDescriptor = dependencies.get(i);
+            final String page = pageDescriptor.fileName;
+            if (!page.endsWith(ETC1_EXTENSION)) {
+                continue;
+            }
+            final FileHandle alpha = resolve(page.substring(0,
+                    page.length() - ETC1_EXTENSION.length())
+                    + TamagotchiAssets.ALPHA_PAGE_SUFFIX);
+            if (alpha.exists()) {
+                final String alphaName = alpha.path().replaceAll("\\\\", "/");
+                // filtered like the colors it belongs to
+                dependencies.add(new AssetDescriptor(alphaName, Texture.class,
+                        pageDescriptor.params));
+                pages.add(new String[] {
+                        page, alphaName
+                });
+            }
+        }
+        // dependencies are resolved on the loader thread
+        synchronized (pendingAlphaPages) {
+            pendingAlphaPages.put(fileName, pages);
+        }
+        return dependencies;
+    }
+
+    @Override
+    public TextureAtlas load(AssetManager assetManager, String fileName,
+            TextureAtlasParameter parameter) {
+        final TextureAtlas atlas = super.load(assetManager, fileName, parameter);
+        final ArrayList<String[]> pages;
+        synchronized (pendingAlphaPages) {
+            pages = pendingAlphaPages.remove(fileName);
+        }
+        if (pages != null) {
+            for (String[] page : pages) {
+                alphaPages.put(assetManager.get(page[0], Texture.class),
+                        assetManager.get(page[1], Texture.class));
+            }
+        }
+        return atlas;
+    }
+
+    /**
+     * @param page a page of a loaded atlas
+     * @return the page holding its alpha channel, or null if the page has an
+     *         alpha channel of its own or none at all
+     */
+    public Texture getAlphaPage(Texture page) {
+        return alphaPages.get(page);
+    }
+
+}
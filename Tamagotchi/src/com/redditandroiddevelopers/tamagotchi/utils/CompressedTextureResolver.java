@@ -0,0 +1,53 @@
+package com.redditandroiddevelopers.tamagotchi.utils;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets;
+
+/**
+ * Resolves texture atlases to their compressed variant written by the asset
+ * pipeline, if the device can upload ETC1 textures directly. Everything else,
+ * including devices without ETC1 support, falls through to the wrapped
+ * resolver.
+ */
+public class CompressedTextureResolver implements FileHandleResolver {
+
+    private static final String TAG = "Tamagotchi:CompressedTextureResolver";
+
+    private static final String ETC1_EXTENSION = "GL_OES_compressed_ETC1_RGB8_texture";
+
+    private final FileHandleResolver baseResolver;
+    private final boolean enabled;
+
+    /**
+     * @param baseResolver the resolver to resolve all files with
+     * @param enabled false to never use compressed textures
+     */
+    public CompressedTextureResolver(FileHandleResolver baseResolver, boolean enabled) {
+        this.baseResolver = baseResolver;
+        this.enabled = enabled && isSupported();
+        Gdx.app.log(TAG, "Compressed textures " + (this.enabled ? "enabled" : "disabled"));
+    }
+
+    /**
+     * @return true if ETC1 textures can be uploaded without decoding them
+     */
+    public static boolean isSupported() {
+        // without GL20, libgdx decodes ETC1 to RGB565 on the CPU
+        return Gdx.graphics.isGL20Available() && Gdx.graphics.supportsExtension(ETC1_EXTENSION);
+    }
+
+    @Override
+    public FileHandle resolve(String fileName) {
+        if (enabled && !fileName.startsWith(TamagotchiAssets.COMPRESSED_DIR)) {
+            final FileHandle handle = baseResolver.resolve(TamagotchiAssets.COMPRESSED_DIR
+                    + fileName);
+            if (handle.exists()) {
+                return handle;
+            }
+        }
+        return baseResolver.resolve(fileName);
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.redditandroiddevelopers.tamagotchi.utils;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * A SpriteBatch that counts the sprites drawn and the texture switches that
+ * break up its batches, for the render statistics. Render calls are already
+ * counted by SpriteBatch itself. With OpenGL ES 2.0, it can also apply a
+ * {@link ColorGrading}, and draw compressed atlas pages whose alpha channel
+ * is in a separate alpha page.
+ */
+public class CountingSpriteBatch extends SpriteBatch {
+
+    /** Sprites drawn since the last call to {@link #resetCounters()} */
+    public int sprites;
+    /**
+     * Times a sprite used another texture than the one before it, since the
+     * last call to {@link #resetCounters()}
+     */
+    public int textureSwitches;
+
+    private Texture lastCountedTexture;
+
+    private final ColorGrading grading;
+
+    /** Looks up the alpha pages of compressed atlas pages, may be null */
+    private CompressedAtlasLoader atlasLoader;
+    /** The last texture drawn, whose alpha page is set on the shader */
+    private Texture shaderTexture;
+    private Texture shaderAlphaPage;
+
+    public CountingSpriteBatch() {
+        super();
+        grading = null;
+    }
+
+    /**
+     * Create a batch drawing through the shader of a color grading. Requires
+     * OpenGL ES 2.0.
+     *
+     * @param size the maximum number of sprites in a single batch
+     * @param grading the color grading applied to everything drawn
+     */
+    public CountingSpriteBatch(int size, ColorGrading grading) {
+        super(size, grading.getShader());
+        this.grading = grading;
+    }
+
+    @Override
+    public void begin() {
+        super.begin();
+        if (grading != null) {
+            // the shader is bound now
+            grading.apply();
+            grading.setAlphaPage(null);
+            shaderTexture = null;
+            shaderAlphaPage = null;
+        }
+    }
+
+    /**
+     * Draw the alpha channel of compressed atlas pages from their alpha
+     * pages. Only takes effect with a {@link ColorGrading}.
+     *
+     * @param atlasLoader the loader of the atlases drawn
+     */
+    public void setAtlasLoader(CompressedAtlasLoader atlasLoader) {
+        this.atlasLoader = atlasLoader;
+    }
+
+    /**
+     * Reset the counters, usually at the start of a frame.
+     */
+    public void resetCounters() {
+        sprites = 0;
+        textureSwitches = 0;
+        lastCountedTexture = null;
+    }
+
+    private void count(Texture texture, int count) {
+        if (texture != shaderTexture && grading != null && atlasLoader != null) {
+            shaderTexture = texture;
+            final Texture alphaPage = atlasLoader.getAlphaPage(texture);
+            if (alphaPage != shaderAlphaPage) {
+                // the sprites batched so far keep the alpha page they had
+                flush();
+                grading.setAlphaPage(alphaPage);
+                shaderAlphaPage = alphaPage;
+            }
+        }
+        sprites += count;
+        if (texture != lastCountedTexture) {
+            textureSwitches++;
+            lastCountedTexture = texture;
+        }
+    }
+
+    @Override
+    public void draw(Texture texture, float x, float y, float originX, float originY, float width,
+            float height, float scaleX, float scaleY, float rotation, int srcX, int srcY,
+            int srcWidth, int srcHeight, boolean flipX, boolean flipY) {
+        count(texture, 1);
+        super.draw(texture, x, y, originX, originY, width, height, scaleX, scaleY, rotation, srcX,
+                srcY, srcWidth, srcHeight, flipX, flipY);
+    }
+
+    @Override
+    public void draw(Texture texture, float x, float y, float width, float height, int srcX,
+            int srcY, int srcWidth, int srcHeight, boolean flipX, boolean flipY) {
+        count(texture, 1);
+        super.draw(texture, x, y, width, height, srcX, srcY, srcWidth, srcHeight, flipX, flipY);
+    }
+
+    @Override
+    public void draw(Texture texture, float x, float y, int srcX, int srcY, int srcWidth,
+            int srcHeight) {
+        count(texture, 1);
+        super.draw(texture, x, y, srcX, srcY, srcWidth, srcHeight);
+    }
+
+    @Override
+    public void draw(Texture texture, float x, float y, float width, float height, float u,
+            float v, float u2, float v2) {
+        count(texture, 1);
+        super.draw(texture, x, y, width, height, u, v, u2, v2);
+    }
+
+    @Override
+    public void draw(Texture texture, float x, float y) {
+        count(texture, 1);
+        super.draw(texture, x, y);
+    }
+
+    @Override
+    public void draw(Texture texture, float x, float y, float width, float height) {
+        count(texture, 1);
+        super.draw(texture, x, y, width, height);
+    }
+
+    @Override
+    public void draw(Texture texture, float[] spriteVertices, int offset, int length) {
+        // 20 floats per sprite
+        count(texture, length / 20);
+        super.draw(texture, spriteVertices, offset, length);
+    }
+
+    // draw(TextureRegion, float, float) delegates to the method below
+
+    @Override
+    public void draw(TextureRegion region, float x, float y, float width, float height) {
+        count(region.getTexture(), 1);
+        super.draw(region, x, y, width, height);
+    }
+
+    @Override
+    public void draw(TextureRegion region, float x, float y, float originX, float originY,
+            float width, float height, float scaleX, float scaleY, float rotation) {
+        count(region.getTexture(), 1);
+        super.draw(region, x, y, originX, originY, width, height, scaleX, scaleY, rotation);
+    }
+
+    @Override
+    public void draw(TextureRegion region, float x, float y, float originX, float originY,
+            float width, float height, float scaleX, float scaleY, float rotation,
+            boolean clockwise) {
+        count(region.getTexture(), 1);
+        super.draw(region, x, y, originX, originY, width, height, scaleX, scaleY, rotation,
+                clockwise);
+    }
+
+}
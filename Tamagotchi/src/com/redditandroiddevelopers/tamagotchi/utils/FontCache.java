@@ -0,0 +1,218 @@
+package com.redditandroiddevelopers.tamagotchi.utils;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.graphics.g2d.stbtt.StbTrueTypeFont;
+import com.badlogic.gdx.graphics.g2d.stbtt.StbTrueTypeFont.Bitmap;
+import com.badlogic.gdx.graphics.g2d.stbtt.StbTrueTypeFont.FontVMetrics;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.redditandroiddevelopers.tamagotchi.TamagotchiAssets.FontAsset;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Bakes TrueType fonts into BMFont pages in local storage, so that glyphs are
+ * only ever rasterized once per font, size, character set and resolution. The
+ * baked files are named after a hash of all of those, which makes a change in
+ * any of them (e.g. a device with a different screen size) bake a fresh copy.
+ * Rasterization follows the scaling of TrueTypeFontFactory, and the
+ * {@link CachedFontLoader} uploads the page with the same texture format and
+ * filter, so the baked fonts look like the ones we used to create at runtime.
+ * Only the arrangement of the glyphs on the page differs, since they are laid
+ * out in rows instead of the packing tree of TrueTypeFontFactory.
+ */
+public class FontCache {
+
+    private static final String TAG = "Tamagotchi:FontCache";
+
+    /** Bump this whenever the baked file format changes */
+    private static final int VERSION = 1;
+
+    private static final String CACHE_DIR = "font-cache/";
+
+    public static final String FONT_CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789][_!$%#@|\\/?-+=()*&.:;,{}\"\u00b4`'<>";
+
+    private static final int PADDING = 1;
+    private static final int MIN_PAGE_SIZE = 64;
+    private static final int MAX_PAGE_SIZE = 1024;
+
+    private final float worldWidth;
+    private final float worldHeight;
+    private final float viewportWidth;
+    private final float viewportHeight;
+
+    /**
+     * @param worldWidth the width of the stages the fonts are drawn on
+     * @param worldHeight the height of the stages the fonts are drawn on
+     */
+    public FontCache(float worldWidth, float worldHeight) {
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        viewportWidth = Gdx.graphics.getWidth();
+        viewportHeight = Gdx.graphics.getHeight();
+    }
+
+    /**
+     * @param asset a font asset
+     * @return the BMFont file of the baked font, which might not exist yet
+     */
+    public FileHandle getFontFile(FontAsset asset) {
+        return Gdx.files.local(CACHE_DIR + getKey(asset) + ".fnt");
+    }
+
+    /**
+     * @param asset a font asset
+     * @return the page image of the baked font, which might not exist yet
+     */
+    public FileHandle getImageFile(FontAsset asset) {
+        return Gdx.files.local(CACHE_DIR + getKey(asset) + ".png");
+    }
+
+    /**
+     * @param asset a font asset
+     * @return true if the font has already been baked
+     */
+    public boolean isBaked(FontAsset asset) {
+        // the font file is written last and marks a complete bake
+        return getFontFile(asset).exists() && getImageFile(asset).exists();
+    }
+
+    /**
+     * Rasterize a font and store it in the cache. This is expensive, but safe
+     * to call from a background thread.
+     *
+     * @param asset the font to bake
+     */
+    public void bake(FontAsset asset) {
+        final long startTime = System.currentTimeMillis();
+        final StbTrueTypeFont font = new StbTrueTypeFont(Gdx.files.internal(asset.getFontFile()));
+        final float size = asset.getSize();
+        final float scaleW = font.scaleForPixelHeight(viewportWidth * size / worldWidth);
+        final float scaleH = font.scaleForPixelHeight(viewportHeight * size / worldHeight);
+
+        // rasterize all glyphs
+        final char[] characters = FONT_CHARACTERS.toCharArray();
+        final Bitmap[] glyphs = new Bitmap[characters.length];
+        for (int i = 0; i < characters.length; i++) {
+            final int glyph = font.findGlyphIndex(characters[i]);
+            if (glyph != 0) {
+                glyphs[i] = font.makeGlyphBitmap(scaleW, scaleH, 0, 0, glyph);
+            }
+        }
+
+        // lay them out in rows on the smallest page that fits
+        final int[] positions = new int[characters.length * 2];
+        int pageWidth = MIN_PAGE_SIZE;
+        int pageHeight = MIN_PAGE_SIZE;
+        while (!layoutGlyphs(glyphs, positions, pageWidth, pageHeight)) {
+            if (pageWidth >= MAX_PAGE_SIZE && pageHeight >= MAX_PAGE_SIZE) {
+                throw new GdxRuntimeException("Font " + asset + " does not fit a single page");
+            }
+            if (pageHeight > pageWidth) {
+                pageWidth *= 2;
+            } else {
+                pageHeight *= 2;
+            }
+        }
+
+        final String imageName = getImageFile(asset).name();
+        final Pixmap page = new Pixmap(pageWidth, pageHeight, Format.RGBA8888);
+        final FontVMetrics vMetrics = font.getFontVMetrics();
+        final int lineHeight = (int) ((vMetrics.ascent - vMetrics.descent) * scaleH + 0.5f);
+        final int base = (int) (vMetrics.ascent * scaleH + 0.5f);
+        final StringBuilder fnt = new StringBuilder(4096);
+        fnt.append("info face=\"").append(asset.getFontFile()).append("\" size=").append(size)
+                .append('\n');
+        fnt.append("common lineHeight=").append(lineHeight).append(" base=").append(base)
+                .append(" scaleW=").append(pageWidth).append(" scaleH=").append(pageHeight)
+                .append(" pages=1\n");
+        fnt.append("page id=0 file=\"").append(imageName).append("\"\n");
+        fnt.append("chars count=").append(characters.length + 1).append('\n');
+        fnt.append("char id=32 x=0 y=0 width=0 height=0 xoffset=0 yoffset=").append(lineHeight)
+                .append(" xadvance=").append(lineHeight / 2).append(" page=0 chnl=0\n");
+        for (int i = 0; i < characters.length; i++) {
+            final Bitmap glyph = glyphs[i];
+            if (glyph == null) {
+                continue;
+            }
+            final int x = positions[i * 2] + PADDING;
+            final int y = positions[i * 2 + 1] + PADDING;
+            page.drawPixmap(glyph.pixmap, x, y);
+            final int advance = (int) (font.getCodepointHMetrics(characters[i]).advance * scaleW + 0.5f);
+            fnt.append("char id=").append((int) characters[i]).append(" x=").append(x)
+                    .append(" y=").append(y).append(" width=").append(glyph.pixmap.getWidth())
+                    .append(" height=").append(glyph.pixmap.getHeight()).append(" xoffset=")
+                    .append(glyph.box.x0).append(" yoffset=").append(glyph.box.y0)
+                    .append(" xadvance=").append(advance).append(" page=0 chnl=0\n");
+            glyph.dispose();
+        }
+        font.dispose();
+
+        PixmapIO.writePNG(getImageFile(asset), page);
+        page.dispose();
+        getFontFile(asset).writeString(fnt.toString(), false);
+        Gdx.app.log(TAG, "Baked " + asset + " in " + (System.currentTimeMillis() - startTime)
+                + "ms");
+    }
+
+    /**
+     * Compute a simple row layout for the glyphs on a page of the given size.
+     *
+     * @return false if the glyphs do not fit
+     */
+    private static boolean layoutGlyphs(Bitmap[] glyphs, int[] positions, int pageWidth,
+            int pageHeight) {
+        int x = 0;
+        int y = 0;
+        int rowHeight = 0;
+        for (int i = 0; i < glyphs.length; i++) {
+            if (glyphs[i] == null) {
+                continue;
+            }
+            final int width = glyphs[i].pixmap.getWidth() + PADDING * 2;
+            final int height = glyphs[i].pixmap.getHeight() + PADDING * 2;
+            if (width > pageWidth) {
+                return false;
+            }
+            if (x + width > pageWidth) {
+                // start a new row
+                x = 0;
+                y += rowHeight;
+                rowHeight = 0;
+            }
+            if (y + height > pageHeight) {
+                return false;
+            }
+            positions[i * 2] = x;
+            positions[i * 2 + 1] = y;
+            x += width;
+            rowHeight = Math.max(rowHeight, height);
+        }
+        return true;
+    }
+
+    private String getKey(FontAsset asset) {
+        final String description = VERSION + ":" + asset.getFontFile() + ":" + asset.getSize()
+                + ":" + FONT_CHARACTERS + ":" + worldWidth + "x" + worldHeight + ":"
+                + viewportWidth + "x" + viewportHeight;
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("MD5");
+            final byte[] hash = digest.digest(description.getBytes("UTF-8"));
+            final StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+                sb.append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new GdxRuntimeException(e);
+        } catch (java.io.UnsupportedEncodingException e) {
+            throw new GdxRuntimeException(e);
+        }
+    }
+
+}
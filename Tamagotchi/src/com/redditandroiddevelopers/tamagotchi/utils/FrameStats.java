@@ -0,0 +1,209 @@
+package com.redditandroiddevelopers.tamagotchi.utils;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Records render statistics for the most recent frames of a screen: frame,
+ * update and draw time, render calls (each of which binds a texture), texture
+ * switches, sprites and heap usage. The frames are kept in a ring buffer of
+ * primitive arrays, so recording does not allocate.
+ */
+public class FrameStats {
+
+    /** The number of frames kept */
+    public static final int CAPACITY = 300;
+
+    private final long[] frameNanos = new long[CAPACITY];
+    private final long[] updateNanos = new long[CAPACITY];
+    private final long[] drawNanos = new long[CAPACITY];
+    private final int[] renderCalls = new int[CAPACITY];
+    private final int[] textureSwitches = new int[CAPACITY];
+    private final int[] sprites = new int[CAPACITY];
+    private final long[] heapBytes = new long[CAPACITY];
+    private final long[] heapDelta = new long[CAPACITY];
+    private final boolean[] gc = new boolean[CAPACITY];
+
+    /** Index of the next frame to record */
+    private int next;
+    private int count;
+    private int gcCount;
+    private long totalFrames;
+
+    private final Runtime runtime = Runtime.getRuntime();
+    private long frameStart;
+    private long updateEnd;
+    private long heapStart;
+    private int renderCallsStart;
+
+    /**
+     * Call at the start of a frame.
+     *
+     * @param batch the batch the frame is drawn with
+     */
+    public void beginFrame(CountingSpriteBatch batch) {
+        batch.resetCounters();
+        renderCallsStart = batch.totalRenderCalls;
+        heapStart = runtime.totalMemory() - runtime.freeMemory();
+        frameStart = TimeUtils.nanoTime();
+    }
+
+    /**
+     * Call between updating and drawing the frame.
+     */
+    public void endUpdate() {
+        updateEnd = TimeUtils.nanoTime();
+    }
+
+    /**
+     * Call at the end of a frame to record it.
+     *
+     * @param batch the batch the frame is drawn with
+     */
+    public void endFrame(CountingSpriteBatch batch) {
+        final long frameEnd = TimeUtils.nanoTime();
+        final long heap = runtime.totalMemory() - runtime.freeMemory();
+        final int i = next;
+        frameNanos[i] = frameEnd - frameStart;
+        updateNanos[i] = updateEnd - frameStart;
+        drawNanos[i] = frameEnd - updateEnd;
+        renderCalls[i] = batch.totalRenderCalls - renderCallsStart;
+        textureSwitches[i] = batch.textureSwitches;
+        sprites[i] = batch.sprites;
+        heapBytes[i] = heap;
+        heapDelta[i] = heap - heapStart;
+        // the used heap only shrinks when the garbage collector ran
+        gc[i] = heap < heapStart;
+        if (gc[i]) {
+            gcCount++;
+        }
+        next = (next + 1) % CAPACITY;
+        if (count < CAPACITY) {
+            count++;
+        }
+        totalFrames++;
+    }
+
+    /**
+     * Forget all recorded frames.
+     */
+    public void clear() {
+        next = 0;
+        count = 0;
+        gcCount = 0;
+        totalFrames = 0;
+    }
+
+    /**
+     * @return the number of recorded frames
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of frames recorded since the last {@link #clear()},
+     *         including those no longer kept
+     */
+    public long getTotalFrames() {
+        return totalFrames;
+    }
+
+    /**
+     * @return the number of frames in which the garbage collector ran, since
+     *         the last {@link #clear()}
+     */
+    public int getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * @param age 0 for the latest frame, 1 for the one before, etc.
+     * @return the index of the frame in the ring buffer
+     */
+    private int index(int age) {
+        return (next - 1 - age + CAPACITY) % CAPACITY;
+    }
+
+    public long getFrameNanos(int age) {
+        return frameNanos[index(age)];
+    }
+
+    public long getUpdateNanos(int age) {
+        return updateNanos[index(age)];
+    }
+
+    public long getDrawNanos(int age) {
+        return drawNanos[index(age)];
+    }
+
+    public int getRenderCalls(int age) {
+        return renderCalls[index(age)];
+    }
+
+    public int getTextureSwitches(int age) {
+        return textureSwitches[index(age)];
+    }
+
+    public int getSprites(int age) {
+        return sprites[index(age)];
+    }
+
+    public long getHeapBytes(int age) {
+        return heapBytes[index(age)];
+    }
+
+    public long getHeapDelta(int age) {
+        return heapDelta[index(age)];
+    }
+
+    /**
+     * @return the average frame time of the recorded frames, in nanoseconds
+     */
+    public long getAverageFrameNanos() {
+        if (count == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int age = 0; age < count; age++) {
+            sum += frameNanos[index(age)];
+        }
+        return sum / count;
+    }
+
+    /**
+     * @return the longest frame time of the recorded frames, in nanoseconds
+     */
+    public long getMaxFrameNanos() {
+        long max = 0;
+        for (int age = 0; age < count; age++) {
+            max = Math.max(max, frameNanos[index(age)]);
+        }
+        return max;
+    }
+
+    /**
+     * Write the recorded frames as CSV, oldest first, replacing the file.
+     *
+     * @param file the file to write
+     */
+    public void writeCsv(FileHandle file) {
+        final StringBuilder sb = new StringBuilder(64 * (count + 1));
+        sb.append("frame_us,update_us,draw_us,render_calls,texture_switches,sprites,"
+                + "heap_bytes,heap_delta,gc\n");
+        for (int age = count - 1; age >= 0; age--) {
+            final int i = index(age);
+            sb.append(frameNanos[i] / 1000).append(',')
+                    .append(updateNanos[i] / 1000).append(',')
+                    .append(drawNanos[i] / 1000).append(',')
+                    .append(renderCalls[i]).append(',')
+                    .append(textureSwitches[i]).append(',')
+                    .append(sprites[i]).append(',')
+                    .append(heapBytes[i]).append(',')
+                    .append(heapDelta[i]).append(',')
+                    .append(gc[i] ? 1 : 0).append('\n');
+        }
+        file.writeString(sb.toString(), false);
+    }
+
+}
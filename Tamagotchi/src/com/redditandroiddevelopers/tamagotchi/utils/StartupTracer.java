@@ -0,0 +1,143 @@
+package com.redditandroiddevelopers.tamagotchi.utils;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.util.ArrayList;
+
+/**
+ * Timestamps the phases of a cold start, from the launcher up to the first
+ * interactive frame, so it can be seen where the startup time goes. The
+ * launcher creates the tracer as early as possible; all times are relative
+ * to its creation. Phases may nest and may be traced from any thread. Once
+ * {@link #finish(FileHandle)} has written the report, tracing stops and all
+ * further calls are ignored.
+ */
+public class StartupTracer {
+
+    private static final String TAG = "Tamagotchi:StartupTracer";
+
+    private static class Phase {
+
+        final String name;
+        final long startNanos;
+        /** -1 while the phase has not ended */
+        long endNanos = -1;
+
+        Phase(String name, long startNanos) {
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+    }
+
+    private final long originNanos;
+    /** The phases in the order they began */
+    private final ArrayList<Phase> phases = new ArrayList<Phase>();
+    private boolean tracing = true;
+
+    public StartupTracer() {
+        originNanos = System.nanoTime();
+    }
+
+    /**
+     * @return true until the report has been written; callers may skip
+     *         building phase names otherwise
+     */
+    public synchronized boolean isTracing() {
+        return tracing;
+    }
+
+    /**
+     * Start timing a phase.
+     *
+     * @param name the name of the phase, e.g. {@code TamagotchiGame.create}
+     */
+    public synchronized void begin(String name) {
+        if (tracing) {
+            phases.add(new Phase(name, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Stop timing the latest phase of that name that has not ended yet.
+     *
+     * @param name the name passed to {@link #begin(String)}
+     */
+    public synchronized void end(String name) {
+        if (!tracing) {
+            return;
+        }
+        for (int i = phases.size() - 1; i >= 0; i--) {
+            final Phase phase = phases.get(i);
+            if (phase.endNanos < 0 && phase.name.equals(name)) {
+                phase.endNanos = System.nanoTime();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Record a point in time, i.e. a phase without a duration.
+     *
+     * @param name the name of the event
+     */
+    public synchronized void mark(String name) {
+        if (tracing) {
+            final Phase phase = new Phase(name, System.nanoTime());
+            phase.endNanos = phase.startNanos;
+            phases.add(phase);
+        }
+    }
+
+    /**
+     * Stop tracing, log the phases and write them to a JSON file. Phases that
+     * have not ended are reported without a duration. Must be called on the
+     * rendering thread.
+     *
+     * @param file the file to write the report to, may be null
+     */
+    public synchronized void finish(FileHandle file) {
+        if (!tracing) {
+            return;
+        }
+        tracing = false;
+        final long totalNanos = System.nanoTime() - originNanos;
+        Gdx.app.log(TAG, "Startup took " + toMillis(totalNanos) + " ms");
+
+        final StringBuilder sb = new StringBuilder(64 * (phases.size() + 1));
+        sb.append("{\n  \"total_ms\": ").append(toMillis(totalNanos))
+                .append(",\n  \"phases\": [");
+        for (int i = 0; i < phases.size(); i++) {
+            final Phase phase = phases.get(i);
+            final float startMillis = toMillis(phase.startNanos - originNanos);
+            final float durationMillis = phase.endNanos < 0 ? -1
+                    : toMillis(phase.endNanos - phase.startNanos);
+            Gdx.app.log(TAG, "  " + phase.name + " at " + startMillis + " ms"
+                    + (durationMillis < 0 ? ", unfinished" : ", took " + durationMillis + " ms"));
+            sb.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\"name\": \"").append(phase.name)
+                    .append("\", \"start_ms\": ").append(startMillis)
+                    .append(", \"duration_ms\": ").append(durationMillis).append('}');
+        }
+        sb.append("\n  ]\n}\n");
+        phases.clear();
+
+        if (file == null) {
+            return;
+        }
+        try {
+            file.writeString(sb.toString(), false);
+            Gdx.app.debug(TAG, "Wrote startup report to " + file.path());
+        } catch (GdxRuntimeException e) {
+            Gdx.app.error(TAG, "Cannot write startup report to " + file.path(), e);
+        }
+    }
+
+    private static float toMillis(long nanos) {
+        // keep a tenth of a millisecond
+        return Math.round(nanos / 100000.0) / 10f;
+    }
+
+}